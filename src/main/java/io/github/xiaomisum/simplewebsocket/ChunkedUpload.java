@@ -0,0 +1,172 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 分块上传，把文件或输入流作为一条分片的二进制消息发送
+ * <p>
+ * 从引擎的共享缓冲池租用两块直接缓冲区轮流读取与发送：一块交给jetty写出时读取下一块，缓冲区写出完成后才被再次填充，
+ * 因此内存占用只与分块大小有关，与数据总长度无关，上传结束后缓冲区归还缓冲池。读取是阻塞的，每一块都作为单独的任务
+ * 在引擎的线程池中执行，由这块缓冲区上一次写出的完成触发，等待写出期间不占用线程；
+ * 数据恰好读满最后一块时，以一个空的结束帧结束消息
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 17:40
+ */
+final class ChunkedUpload {
+
+    /**
+     * 默认分块大小
+     */
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final ServiceSocket socket;
+    private final ByteBufferPool pool;
+    private final Executor executor;
+    private final int chunkSize;
+    private final ByteBuffer[] buffers = new ByteBuffer[2];
+    private final CompletableFuture<?>[] pending = {CompletableFuture.completedFuture(null), CompletableFuture.completedFuture(null)};
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private ReadableByteChannel channel;
+
+    private ChunkedUpload(ServiceSocket socket, WebSocketEngine engine, int chunkSize) {
+        this.socket = socket;
+        this.pool = engine.bufferPool();
+        this.executor = engine.executor();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 在引擎的线程池中打开数据源并分块发送
+     *
+     * @param socket    已打开的连接
+     * @param source    数据源，在发送开始时打开，发送结束后关闭
+     * @param chunkSize 分块大小
+     * @param engine    提供缓冲池与执行读取的线程池的引擎
+     * @return 最后一个分片写出后完成的 Future
+     */
+    static CompletableFuture<Void> send(ServiceSocket socket, Callable<ReadableByteChannel> source, int chunkSize, WebSocketEngine engine) {
+        var upload = new ChunkedUpload(socket, engine, chunkSize);
+        upload.executor.execute(() -> upload.start(source));
+        return upload.result;
+    }
+
+    private void start(Callable<ReadableByteChannel> source) {
+        try {
+            channel = source.call();
+            buffers[0] = pool.acquire(chunkSize, true);
+            buffers[1] = pool.acquire(chunkSize, true);
+        } catch (Throwable e) {
+            finish(e);
+            return;
+        }
+        next(0);
+    }
+
+    /**
+     * 读取并发送一块，同时安排下一块在另一块缓冲区上一次写出完成后读取；读取与发送总是在线程池中依次进行，调用栈不随块数增长
+     *
+     * @param i 本次使用的缓冲区
+     */
+    private void next(int i) {
+        boolean last;
+        try {
+            var buffer = buffers[i].clear().limit(chunkSize);
+            last = fill(channel, buffer);
+            pending[i] = socket.sendPartial(buffer.flip(), last);
+        } catch (Throwable e) {
+            finish(e);
+            return;
+        }
+        if (last) {
+            CompletableFuture.allOf(pending).whenComplete((v, e) -> finish(e));
+            return;
+        }
+        // 另一块缓冲区上一次写出完成后即可读取下一块，这一块仍在写出
+        pending[i ^ 1].whenComplete((v, e) -> {
+            if (e == null) {
+                executor.execute(() -> next(i ^ 1));
+            } else {
+                finish(e);
+            }
+        });
+    }
+
+    /**
+     * 关闭数据源，jetty不再持有任何一块缓冲区后归还缓冲池，并完成上传
+     */
+    private void finish(Throwable failure) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        var cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        CompletableFuture.allOf(pending).handle((v, e) -> null).thenRun(() -> {
+            for (var buffer : buffers) {
+                if (buffer != null) {
+                    pool.release(buffer);
+                }
+            }
+            if (cause == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * 读满缓冲区或读到数据末尾
+     *
+     * @return 读到数据末尾时返回true
+     */
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
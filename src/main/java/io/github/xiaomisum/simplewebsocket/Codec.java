@@ -0,0 +1,129 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 类型化消息的编解码器，把对象编码为消息负载，或从消息负载解码出对象
+ * <p>
+ * 解码直接读取消息负载的只读视图，不经过 {@link String}；同一个编解码器会被多个连接、多个线程共用，
+ * 实现必须是线程安全的，通常应当是无状态的，或只持有线程安全的序列化器（如 Jackson 的 {@code ObjectReader}）
+ *
+ * @param <T> 对象类型
+ * @author xiaomi
+ * Created at 2026/10/18 19:40
+ */
+public interface Codec<T> {
+
+    /**
+     * 把对象编码为消息负载
+     * <p>
+     * 返回的缓冲区只用于一次发送，发送时不复制，写出期间会被原地掩码，因此不能返回共享的缓冲区
+     *
+     * @param value 对象
+     * @return 消息负载，position 到 limit 之间的内容
+     */
+    ByteBuffer encode(T value);
+
+    /**
+     * 从消息负载解码出对象
+     * <p>
+     * 负载是消息数据的只读视图，解码结束后不能再持有
+     *
+     * @param payload 消息负载
+     * @return 对象
+     */
+    T decode(ByteBuffer payload);
+
+    /**
+     * 编码后的消息类型，文本格式（如JSON）应当返回 {@link Message.Type#TEXT}，此时编码结果必须是UTF-8
+     *
+     * @return 消息类型，默认为二进制消息
+     */
+    default Message.Type type() {
+        return Message.Type.BINARY;
+    }
+
+    /**
+     * 由编码函数与解码函数组成编解码器，函数必须是线程安全的
+     *
+     * @param type    编码后的消息类型
+     * @param encoder 编码函数
+     * @param decoder 解码函数
+     * @param <T>     对象类型
+     * @return 编解码器
+     */
+    static <T> Codec<T> of(Message.Type type, Function<? super T, ByteBuffer> encoder, Function<ByteBuffer, ? extends T> decoder) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(encoder, "encoder");
+        Objects.requireNonNull(decoder, "decoder");
+        return new Codec<>() {
+            @Override
+            public ByteBuffer encode(T value) {
+                return encoder.apply(value);
+            }
+
+            @Override
+            public T decode(ByteBuffer payload) {
+                return decoder.apply(payload);
+            }
+
+            @Override
+            public Message.Type type() {
+                return type;
+            }
+        };
+    }
+
+    /**
+     * UTF-8文本的编解码器，编码为文本消息
+     *
+     * @return 编解码器
+     */
+    static Codec<String> utf8() {
+        return of(Message.Type.TEXT, StandardCharsets.UTF_8::encode, payload -> StandardCharsets.UTF_8.decode(payload).toString());
+    }
+
+    /**
+     * 字节数组的编解码器，发送时数组会被原地掩码，因此编码与解码都复制数据
+     *
+     * @return 编解码器
+     */
+    static Codec<byte[]> bytes() {
+        return of(Message.Type.BINARY, value -> ByteBuffer.wrap(value.clone()), payload -> {
+            var bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            return bytes;
+        });
+    }
+}
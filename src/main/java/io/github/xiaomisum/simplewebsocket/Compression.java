@@ -0,0 +1,130 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+package io.github.xiaomisum.simplewebsocket;
+
+import java.util.StringJoiner;
+
+/**
+ * permessage-deflate 压缩选项（RFC 7692），通过 {@link Request#compression(Compression)} 在握手时协商
+ * <p>
+ * 不可变对象，各方法返回修改后的新实例；相同选项的长连接可以互相复用
+ *
+ * @param threshold               小于该长度的单帧消息不压缩直接发送（字节），0表示全部压缩
+ * @param serverMaxWindowBits     要求服务端使用的最大LZ77窗口位数（8~15），0表示不限制
+ * @param clientNoContextTakeover 客户端每条消息后重置压缩上下文，降低内存占用但压缩率变差
+ * @param serverNoContextTakeover 要求服务端每条消息后重置压缩上下文
+ * @author xiaomi
+ * Created at 2026/10/18 18:40
+ */
+public record Compression(int threshold, int serverMaxWindowBits, boolean clientNoContextTakeover, boolean serverNoContextTakeover) {
+
+    /**
+     * 扩展名称
+     */
+    static final String NAME = "permessage-deflate";
+
+    public Compression {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative: " + threshold);
+        }
+        if (serverMaxWindowBits != 0 && (serverMaxWindowBits < 8 || serverMaxWindowBits > 15)) {
+            throw new IllegalArgumentException("serverMaxWindowBits must be between 8 and 15: " + serverMaxWindowBits);
+        }
+    }
+
+    /**
+     * 默认选项：压缩全部消息，双方都保留压缩上下文
+     *
+     * @return 压缩选项
+     */
+    public static Compression deflate() {
+        return new Compression(0, 0, false, false);
+    }
+
+    /**
+     * 设置不压缩的消息长度阈值，过短的消息压缩后往往不会变小，反而消耗CPU
+     *
+     * @param threshold 阈值（字节）
+     * @return 新的压缩选项
+     */
+    public Compression threshold(int threshold) {
+        return new Compression(threshold, serverMaxWindowBits, clientNoContextTakeover, serverNoContextTakeover);
+    }
+
+    /**
+     * 设置要求服务端使用的最大窗口位数
+     * <p>
+     * 客户端使用 {@link java.util.zip.Deflater} 压缩，窗口固定为15位，因此不提供客户端窗口位数的选项
+     *
+     * @param bits 窗口位数（8~15）
+     * @return 新的压缩选项
+     */
+    public Compression serverMaxWindowBits(int bits) {
+        return new Compression(threshold, bits, clientNoContextTakeover, serverNoContextTakeover);
+    }
+
+    /**
+     * 设置客户端是否在每条消息后重置压缩上下文
+     *
+     * @param noContextTakeover 是否重置
+     * @return 新的压缩选项
+     */
+    public Compression clientNoContextTakeover(boolean noContextTakeover) {
+        return new Compression(threshold, serverMaxWindowBits, noContextTakeover, serverNoContextTakeover);
+    }
+
+    /**
+     * 设置是否要求服务端在每条消息后重置压缩上下文
+     *
+     * @param noContextTakeover 是否重置
+     * @return 新的压缩选项
+     */
+    public Compression serverNoContextTakeover(boolean noContextTakeover) {
+        return new Compression(threshold, serverMaxWindowBits, clientNoContextTakeover, noContextTakeover);
+    }
+
+    /**
+     * 构建握手请求中的扩展声明
+     *
+     * @return Sec-WebSocket-Extensions 的取值
+     */
+    String offer() {
+        var offer = new StringJoiner("; ");
+        offer.add(NAME);
+        if (clientNoContextTakeover) {
+            offer.add("client_no_context_takeover");
+        }
+        if (serverNoContextTakeover) {
+            offer.add("server_no_context_takeover");
+        }
+        if (serverMaxWindowBits > 0) {
+            offer.add("server_max_window_bits=" + serverMaxWindowBits);
+        }
+        return offer.toString();
+    }
+}
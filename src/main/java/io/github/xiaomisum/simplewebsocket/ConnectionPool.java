@@ -0,0 +1,373 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 长连接池，按服务地址与握手请求头缓存已打开的 {@link ServiceSocket}，
+ * 使重复的请求/响应交互跳过TCP连接与HTTP升级握手
+ * <p>
+ * 连接池由 {@link WebSocketEngine} 持有，通过 {@link Request#keepAlive(boolean)} 按请求启用。
+ * 空闲连接按后进先出的顺序复用，超过空闲时间、最大存活时间或ping健康检查失败的连接会被关闭
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 11:05
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final WebSocketEngine engine;
+    private final Map<Key, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private volatile int maxPerEndpoint = 8;
+    private volatile long idleTimeout = 60_000;
+    private volatile long maxLifetime = 30 * 60_000;
+    private volatile long healthCheckInterval = 15_000;
+
+    private volatile Scheduler.Task sweeper;
+    private volatile boolean closed = false;
+
+    ConnectionPool(WebSocketEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * 设置每个服务端点的最大连接数，对已创建的端点不生效
+     *
+     * @param maxPerEndpoint 最大连接数
+     * @return 当前连接池实例
+     */
+    public ConnectionPool maxPerEndpoint(int maxPerEndpoint) {
+        this.maxPerEndpoint = maxPerEndpoint > 0 ? maxPerEndpoint : 8;
+        return this;
+    }
+
+    /**
+     * 设置连接的最大空闲时间
+     *
+     * @param idleTimeout 最大空闲时间（毫秒）
+     * @return 当前连接池实例
+     */
+    public ConnectionPool idleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout > 0 ? idleTimeout : 60_000;
+        return this;
+    }
+
+    /**
+     * 设置连接的最大存活时间，超过后不再复用
+     *
+     * @param maxLifetime 最大存活时间（毫秒）
+     * @return 当前连接池实例
+     */
+    public ConnectionPool maxLifetime(long maxLifetime) {
+        this.maxLifetime = maxLifetime > 0 ? maxLifetime : 30 * 60_000;
+        return this;
+    }
+
+    /**
+     * 设置空闲连接的检查间隔，每次检查淘汰过期连接并向其余空闲连接发送ping，
+     * 在下一次检查前未收到pong的连接视为失效；引擎启用了 {@link WebSocketEngine#keepalive(Keepalive)} 时由心跳检测失效连接，
+     * 连接池不再发送ping
+     *
+     * @param healthCheckInterval 检查间隔（毫秒）
+     * @return 当前连接池实例
+     */
+    public ConnectionPool healthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval > 0 ? healthCheckInterval : 15_000;
+        return this;
+    }
+
+    /**
+     * 获取每个服务端点的最大连接数
+     *
+     * @return 最大连接数
+     */
+    public int maxPerEndpoint() {
+        return maxPerEndpoint;
+    }
+
+    /**
+     * 获取所有端点的空闲连接总数
+     *
+     * @return 空闲连接数
+     */
+    public int idleCount() {
+        return endpoints.values().stream().mapToInt(endpoint -> endpoint.idle.size()).sum();
+    }
+
+    /**
+     * 异步租用一个到指定端点的已打开连接，没有可复用的空闲连接时新建连接，
+     * 端点连接数已满时排队等待其他租约归还
+     *
+     * @param uri         WebSocket服务地址
+     * @param headers     握手请求头
+     * @param compression 压缩选项，为null时不压缩
+     * @param timeout     排队等待时长
+     * @param unit        时间单位
+     * @return 连接租约的 Future，使用完毕后必须调用 {@link Lease#release(boolean)}
+     */
+    CompletableFuture<Lease> acquire(URI uri, Map<String, String> headers, Compression compression, int timeout, TimeUnit unit) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("connection pool of engine " + engine.name() + " is closed"));
+        }
+        // 请求头的值允许为null，与非池化的握手一致，不能使用 Map.copyOf
+        var key = new Key(uri, headers == null ? Map.of() : Collections.unmodifiableMap(new HashMap<>(headers)), compression);
+        var endpoint = endpoints.computeIfAbsent(key, k -> new Endpoint(maxPerEndpoint));
+        if (endpoint.permits.tryAcquire()) {
+            return lease(key, endpoint);
+        }
+        var waiter = new CompletableFuture<Void>();
+        endpoint.waiters.add(waiter);
+        var timer = engine.scheduler().schedule(() -> waiter.completeExceptionally(
+                new TimeoutException("no pooled connection to " + uri + " available within " + timeout + " " + unit)), timeout, unit);
+        waiter.whenComplete((v, e) -> {
+            timer.cancel();
+            endpoint.waiters.remove(waiter);
+        });
+        // 入队后再分发一次，避免错过入队前归还的许可
+        dispatch(endpoint);
+        return waiter.thenCompose(v -> lease(key, endpoint));
+    }
+
+    private CompletableFuture<Lease> lease(Key key, Endpoint endpoint) {
+        Connection connection;
+        while ((connection = endpoint.idle.pollFirst()) != null) {
+            if (connection.isReusable(System.nanoTime())) {
+                return CompletableFuture.completedFuture(new Lease(endpoint, connection));
+            }
+            connection.socket.close();
+        }
+        var socket = new ServiceSocket(null, null, null);
+        var request = new ClientUpgradeRequest();
+        key.headers.forEach(request::setHeader);
+        if (key.compression != null) {
+            request.addExtensions(key.compression.offer());
+            socket.compression(key.compression);
+        }
+        try {
+            engine.connect(socket, key.uri, request);
+        } catch (Exception e) {
+            socket.opened().completeExceptionally(e);
+        }
+        return socket.opened()
+                .thenApply(session -> new Lease(endpoint, new Connection(socket, System.nanoTime())))
+                .whenComplete((lease, e) -> {
+                    if (e != null) {
+                        releasePermit(endpoint);
+                    }
+                });
+    }
+
+    /**
+     * 归还许可，并转交给排队等待的租用者
+     *
+     * @param endpoint 服务端点
+     */
+    private void releasePermit(Endpoint endpoint) {
+        endpoint.permits.release();
+        dispatch(endpoint);
+    }
+
+    private void dispatch(Endpoint endpoint) {
+        while (!endpoint.waiters.isEmpty() && endpoint.permits.tryAcquire()) {
+            var waiter = endpoint.waiters.poll();
+            // 队列已空或等待者已超时，许可退回
+            if (waiter == null || !waiter.complete(null)) {
+                endpoint.permits.release();
+            }
+        }
+    }
+
+    /**
+     * 启动空闲连接检查任务
+     */
+    void start() {
+        scheduleSweep();
+    }
+
+    private void scheduleSweep() {
+        if (!closed) {
+            sweeper = engine.scheduler().schedule(this::sweep, healthCheckInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sweep() {
+        try {
+            var now = System.nanoTime();
+            for (var endpoint : endpoints.values()) {
+                for (var connection : endpoint.idle) {
+                    if (!connection.isReusable(now) || !connection.isAlive()) {
+                        // 只有成功从空闲队列移除的连接才能关闭，避免与并发的租用冲突
+                        if (endpoint.idle.remove(connection)) {
+                            connection.socket.close();
+                        }
+                        continue;
+                    }
+                    connection.ping(now);
+                }
+            }
+        } finally {
+            scheduleSweep();
+        }
+    }
+
+    /**
+     * 关闭连接池及其中所有空闲连接
+     */
+    @Override
+    public void close() {
+        closed = true;
+        var sweeper = this.sweeper;
+        if (sweeper != null) {
+            sweeper.cancel();
+        }
+        for (var endpoint : endpoints.values()) {
+            Connection connection;
+            while ((connection = endpoint.idle.pollFirst()) != null) {
+                connection.socket.close();
+            }
+            CompletableFuture<Void> waiter;
+            while ((waiter = endpoint.waiters.poll()) != null) {
+                waiter.completeExceptionally(new IllegalStateException("connection pool of engine " + engine.name() + " is closed"));
+            }
+        }
+        endpoints.clear();
+    }
+
+    private record Key(URI uri, Map<String, String> headers, Compression compression) {
+    }
+
+    private static final class Endpoint {
+        private final Semaphore permits;
+        private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+        private final ConcurrentLinkedQueue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+        private Endpoint(int maxConnections) {
+            this.permits = new Semaphore(maxConnections);
+        }
+    }
+
+    private final class Connection {
+        private final ServiceSocket socket;
+        private final long createdAt;
+        private volatile long idleSince;
+        private volatile long pingSentAt;
+
+        private Connection(ServiceSocket socket, long createdAt) {
+            this.socket = socket;
+            this.createdAt = createdAt;
+            this.idleSince = createdAt;
+        }
+
+        private boolean isReusable(long now) {
+            return socket.isConnected()
+                    && now - createdAt < TimeUnit.MILLISECONDS.toNanos(maxLifetime)
+                    && now - idleSince < TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        }
+
+        private boolean isAlive() {
+            var pingSentAt = this.pingSentAt;
+            return pingSentAt == 0 || socket.lastPongAt() >= pingSentAt;
+        }
+
+        /**
+         * 异步发送健康检查ping，在引擎的共享定时线程上调用，不能阻塞；写出失败时连接被断开
+         * <p>
+         * 连接启用了心跳时不发送：心跳已经在检测连接是否存活，再发送ping会覆盖心跳等待中的ping，推迟其超时并丢弃往返时间样本
+         */
+        private void ping(long now) {
+            if (socket.keepaliveEnabled()) {
+                return;
+            }
+            pingSentAt = now;
+            socket.ping(now);
+        }
+    }
+
+    /**
+     * 连接租约
+     */
+    final class Lease {
+        private final Endpoint endpoint;
+        private final Connection connection;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Lease(Endpoint endpoint, Connection connection) {
+            this.endpoint = endpoint;
+            this.connection = connection;
+        }
+
+        /**
+         * 获取租用的连接
+         *
+         * @return 已打开的连接
+         */
+        ServiceSocket socket() {
+            return connection.socket;
+        }
+
+        /**
+         * 归还连接
+         *
+         * @param reusable 交互是否正常完成，未完成的连接状态未知，直接关闭
+         */
+        void release(boolean reusable) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                var now = System.nanoTime();
+                connection.idleSince = now;
+                connection.pingSentAt = 0;
+                if (reusable && !closed && connection.isReusable(now) && endpoint.idle.size() < maxPerEndpoint) {
+                    endpoint.idle.offerFirst(connection);
+                } else {
+                    connection.socket.close();
+                }
+            } finally {
+                releasePermit(endpoint);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 关联ID提取器，在 {@link MultiplexedSession} 中把关联ID写入发出的消息，并从收到的消息中读取，
+ * 以便把应答路由给对应的调用
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 17:20
+ */
+public interface Correlator {
+
+    /**
+     * 把关联ID写入要发送的文本消息
+     *
+     * @param id      关联ID
+     * @param message 要发送的文本消息
+     * @return 包含关联ID的文本消息
+     */
+    String inject(String id, String message);
+
+    /**
+     * 把关联ID写入要发送的二进制消息
+     * <p>
+     * 默认在消息前加一个头部：2字节大端序的ID长度，随后是UTF-8编码的ID；
+     * 服务端原样带回头部时，{@link #extract(Message)} 可以用 {@link #headerId(ByteBuffer)} 读取
+     *
+     * @param id      关联ID
+     * @param message 要发送的二进制消息
+     * @return 包含关联ID的二进制消息
+     */
+    default byte[] inject(String id, byte[] message) {
+        var bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("correlation id too long: " + bytes.length + " bytes");
+        }
+        return ByteBuffer.allocate(2 + bytes.length + message.length).putShort((short) bytes.length).put(bytes).put(message).array();
+    }
+
+    /**
+     * 读取 {@link #inject(String, byte[])} 默认写入的关联ID头部，不改变缓冲区的 position
+     *
+     * @param payload 二进制消息的负载
+     * @return 关联ID，负载不包含完整的头部时返回null
+     */
+    static String headerId(ByteBuffer payload) {
+        var position = payload.position();
+        if (payload.remaining() < 2) {
+            return null;
+        }
+        var length = Short.toUnsignedInt(payload.getShort(position));
+        if (payload.remaining() < 2 + length) {
+            return null;
+        }
+        var bytes = new byte[length];
+        payload.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 从收到的消息中读取关联ID
+     *
+     * @param message 收到的消息
+     * @return 关联ID，消息不是任何调用的应答时返回null
+     */
+    String extract(Message message);
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.util.concurrent.Flow;
+
+/**
+ * {@link Request#stream(Codec)} 的订阅者，把收到的消息解码后推送给下游订阅者
+ * <p>
+ * 需求直接透传给上游的 {@link MessageSubscription}，不额外缓存；解码失败时取消上游订阅并以解码异常结束下游
+ *
+ * @param <T> 对象类型
+ * @author xiaomi
+ * Created at 2026/10/18 19:55
+ */
+final class DecodingSubscriber<T> implements Flow.Subscriber<Message> {
+
+    private final Flow.Subscriber<? super T> downstream;
+    private final Codec<? extends T> codec;
+    private Flow.Subscription subscription;
+    private boolean done;
+
+    DecodingSubscriber(Flow.Subscriber<? super T> downstream, Codec<? extends T> codec) {
+        this.downstream = downstream;
+        this.codec = codec;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        downstream.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(Message message) {
+        if (done) {
+            return;
+        }
+        T value;
+        try {
+            value = message.decode(codec);
+        } catch (Throwable e) {
+            done = true;
+            subscription.cancel();
+            downstream.onError(e);
+            return;
+        }
+        downstream.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!done) {
+            done = true;
+            downstream.onError(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (!done) {
+            done = true;
+            downstream.onComplete();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * 默认的指标监听器，按服务地址（不含查询参数）分别汇总
+ * <p>
+ * 计数使用分段的 {@link LongAdder}，延迟使用无锁的 {@link Histogram}，记录路径上没有锁；
+ * {@link #snapshot()} 只读取计数与百分位，开销足够每秒采集一次
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 19:18
+ */
+public class DefaultMetricsListener implements MetricsListener {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private Endpoint endpoint(URI uri) {
+        var key = uri.getScheme() + "://" + uri.getRawAuthority() + (uri.getRawPath() == null ? "" : uri.getRawPath());
+        var endpoint = endpoints.get(key);
+        return endpoint != null ? endpoint : endpoints.computeIfAbsent(key, k -> new Endpoint());
+    }
+
+    @Override
+    public void onConnect(URI uri) {
+        endpoint(uri).connects.increment();
+    }
+
+    @Override
+    public void onOpen(URI uri, long connectNanos) {
+        var endpoint = endpoint(uri);
+        endpoint.opened.increment();
+        endpoint.connectLatency.record(connectNanos);
+    }
+
+    @Override
+    public void onSend(URI uri, long bytes) {
+        var endpoint = endpoint(uri);
+        endpoint.messagesOut.increment();
+        endpoint.bytesOut.add(bytes);
+    }
+
+    @Override
+    public void onFrame(URI uri, long bytes) {
+        endpoint(uri).bytesIn.add(bytes);
+    }
+
+    @Override
+    public void onMessage(URI uri, Message message) {
+        endpoint(uri).messagesIn.increment();
+    }
+
+    @Override
+    public void onCompress(URI uri, long bytes, long compressed, long nanos) {
+        var endpoint = endpoint(uri);
+        endpoint.compressIn.add(bytes);
+        endpoint.compressOut.add(compressed);
+        endpoint.compressNanos.add(nanos);
+    }
+
+    @Override
+    public void onDecompress(URI uri, long compressed, long bytes, long nanos) {
+        var endpoint = endpoint(uri);
+        endpoint.decompressIn.add(compressed);
+        endpoint.decompressOut.add(bytes);
+        endpoint.decompressNanos.add(nanos);
+    }
+
+    @Override
+    public void onExchange(URI uri, long latencyNanos) {
+        endpoint(uri).exchangeLatency.record(latencyNanos);
+    }
+
+    @Override
+    public void onPong(URI uri, long rttNanos) {
+        endpoint(uri).rtt.record(rttNanos);
+    }
+
+    @Override
+    public void onOverflow(URI uri, OverflowPolicy overflow) {
+        endpoint(uri).overflows.increment();
+    }
+
+    @Override
+    public void onClose(URI uri, int statusCode) {
+        var endpoint = endpoint(uri);
+        endpoint.closed.increment();
+        endpoint.closeCodes.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onError(URI uri, Throwable cause) {
+        endpoint(uri).errors.increment();
+    }
+
+    /**
+     * 采集当前所有服务地址的指标
+     *
+     * @return 指标快照
+     */
+    public Snapshot snapshot() {
+        var result = new HashMap<String, EndpointSnapshot>();
+        endpoints.forEach((key, endpoint) -> result.put(key, endpoint.snapshot()));
+        return new Snapshot(System.nanoTime(), Map.copyOf(result));
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static class Endpoint {
+        final LongAdder connects = new LongAdder();
+        final LongAdder opened = new LongAdder();
+        final LongAdder closed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder messagesIn = new LongAdder();
+        final LongAdder messagesOut = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder compressIn = new LongAdder();
+        final LongAdder compressOut = new LongAdder();
+        final LongAdder compressNanos = new LongAdder();
+        final LongAdder decompressIn = new LongAdder();
+        final LongAdder decompressOut = new LongAdder();
+        final LongAdder decompressNanos = new LongAdder();
+        final LongAdder overflows = new LongAdder();
+        final Map<Integer, LongAdder> closeCodes = new ConcurrentHashMap<>();
+        final Histogram connectLatency = new Histogram();
+        final Histogram exchangeLatency = new Histogram();
+        final Histogram rtt = new Histogram();
+
+        EndpointSnapshot snapshot() {
+            var codes = new HashMap<Integer, Long>();
+            closeCodes.forEach((code, count) -> codes.put(code, count.sum()));
+            var opened = this.opened.sum();
+            var closed = this.closed.sum();
+            return new EndpointSnapshot(connects.sum(), opened, Math.max(0, opened - closed), errors.sum(),
+                    messagesIn.sum(), messagesOut.sum(), bytesIn.sum(), bytesOut.sum(), Map.copyOf(codes),
+                    connectLatency.percentile(50), connectLatency.percentile(99),
+                    exchangeLatency.count(), exchangeLatency.percentile(50), exchangeLatency.percentile(90),
+                    exchangeLatency.percentile(99), exchangeLatency.percentile(99.9), exchangeLatency.max(),
+                    compressIn.sum(), compressOut.sum(), compressNanos.sum(), decompressIn.sum(), decompressOut.sum(), decompressNanos.sum(),
+                    rtt.count(), rtt.percentile(50), rtt.percentile(99), overflows.sum());
+        }
+    }
+
+    /**
+     * 指标快照
+     *
+     * @param takenAt   采集时间，{@link System#nanoTime()} 时间戳
+     * @param endpoints 服务地址到指标的映射
+     */
+    public record Snapshot(long takenAt, Map<String, EndpointSnapshot> endpoints) {
+
+        /**
+         * 计算与上一次快照之间每秒收到的消息数
+         *
+         * @param endpoint 服务地址
+         * @param previous 上一次快照
+         * @return 每秒收到的消息数
+         */
+        public double messagesInPerSecond(String endpoint, Snapshot previous) {
+            return rate(endpoint, previous, EndpointSnapshot::messagesIn);
+        }
+
+        /**
+         * 计算与上一次快照之间每秒发出的消息数
+         *
+         * @param endpoint 服务地址
+         * @param previous 上一次快照
+         * @return 每秒发出的消息数
+         */
+        public double messagesOutPerSecond(String endpoint, Snapshot previous) {
+            return rate(endpoint, previous, EndpointSnapshot::messagesOut);
+        }
+
+        private double rate(String endpoint, Snapshot previous, ToLongFunction<EndpointSnapshot> counter) {
+            var current = endpoints.get(endpoint);
+            if (current == null || takenAt <= previous.takenAt) {
+                return 0;
+            }
+            var before = previous.endpoints.get(endpoint);
+            var delta = counter.applyAsLong(current) - (before == null ? 0 : counter.applyAsLong(before));
+            return delta * 1e9 / (takenAt - previous.takenAt);
+        }
+    }
+
+    /**
+     * 单个服务地址的指标，延迟单位为纳秒
+     *
+     * @param connects        发起的连接数
+     * @param opened          打开的连接数
+     * @param openSessions    当前打开的连接数
+     * @param errors          错误数，包括连接失败
+     * @param messagesIn      收到的消息数
+     * @param messagesOut     发出的消息数
+     * @param bytesIn         收到的负载字节数
+     * @param bytesOut        发出的负载字节数
+     * @param closeCodes      关闭状态码到次数的映射
+     * @param connectP50      建立连接耗时的中位数
+     * @param connectP99      建立连接耗时的99分位
+     * @param exchanges       完成的交互数
+     * @param exchangeP50     交互耗时的中位数
+     * @param exchangeP90     交互耗时的90分位
+     * @param exchangeP99     交互耗时的99分位
+     * @param exchangeP999    交互耗时的99.9分位
+     * @param exchangeMax     交互耗时的最大值
+     * @param compressIn      压缩前的字节数
+     * @param compressOut     压缩后的字节数
+     * @param compressNanos   压缩的累计耗时
+     * @param decompressIn    解压前的字节数
+     * @param decompressOut   解压后的字节数
+     * @param decompressNanos 解压的累计耗时
+     * @param pongs           收到的心跳pong数
+     * @param rttP50          心跳往返时间的中位数
+     * @param rttP99          心跳往返时间的99分位
+     * @param overflows       发送队列溢出的次数
+     */
+    public record EndpointSnapshot(long connects, long opened, long openSessions, long errors,
+                                   long messagesIn, long messagesOut, long bytesIn, long bytesOut,
+                                   Map<Integer, Long> closeCodes, long connectP50, long connectP99,
+                                   long exchanges, long exchangeP50, long exchangeP90, long exchangeP99,
+                                   long exchangeP999, long exchangeMax,
+                                   long compressIn, long compressOut, long compressNanos,
+                                   long decompressIn, long decompressOut, long decompressNanos,
+                                   long pongs, long rttP50, long rttP99, long overflows) {
+
+        /**
+         * 计算发出数据的压缩比
+         *
+         * @return 压缩前与压缩后字节数之比，没有压缩过数据时为0
+         */
+        public double compressionRatio() {
+            return compressOut == 0 ? 0 : (double) compressIn / compressOut;
+        }
+
+        /**
+         * 计算收到数据的压缩比
+         *
+         * @return 解压后与解压前字节数之比，没有解压过数据时为0
+         */
+        public double decompressionRatio() {
+            return decompressIn == 0 ? 0 : (double) decompressOut / decompressIn;
+        }
+    }
+}
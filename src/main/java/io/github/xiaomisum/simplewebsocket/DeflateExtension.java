@@ -0,0 +1,227 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.BadPayloadException;
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.MessageTooLargeException;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.common.extensions.AbstractExtension;
+import org.eclipse.jetty.websocket.common.frames.DataFrame;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * permessage-deflate 扩展（RFC 7692）的客户端实现，由 {@link WebSocketEngine} 注册到jetty客户端，替换jetty自带的实现
+ * <p>
+ * 与jetty的实现相比，支持按 {@link Compression#threshold()} 跳过短消息的压缩，并把每帧压缩与解压的字节数、
+ * 耗时报告给 {@link MetricsListener}。连接打开时由 {@link ServiceSocket} 通过 {@link #configure(Compression, MetricsListener, URI)} 设置；
+ * 协商结果中的上下文重置参数以服务端的应答为准，只作用于发送方向的压缩上下文
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 18:40
+ */
+public final class DeflateExtension extends AbstractExtension {
+
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater inflater = new Inflater(true);
+    private volatile int threshold;
+    private volatile MetricsListener metrics = MetricsListener.NOOP;
+    private volatile URI uri;
+    private boolean clientNoContextTakeover;
+    private boolean serverNoContextTakeover;
+
+    /**
+     * 当前发送的消息是否压缩，由发送锁保护
+     */
+    private boolean outgoingCompressed;
+
+    /**
+     * 当前接收的消息是否压缩，同一连接的帧由jetty顺序回调
+     */
+    private boolean incomingCompressed;
+
+    @Override
+    public String getName() {
+        return Compression.NAME;
+    }
+
+    @Override
+    public boolean isRsv1User() {
+        return true;
+    }
+
+    @Override
+    public void setConfig(ExtensionConfig config) {
+        super.setConfig(config);
+        clientNoContextTakeover = config.getParameterKeys().contains("client_no_context_takeover");
+        serverNoContextTakeover = config.getParameterKeys().contains("server_no_context_takeover");
+    }
+
+    /**
+     * 设置连接的压缩阈值与指标监听器
+     *
+     * @param compression 压缩选项，为null时压缩全部消息
+     * @param metrics     指标监听器
+     * @param uri         服务地址
+     */
+    void configure(Compression compression, MetricsListener metrics, URI uri) {
+        this.threshold = compression == null ? 0 : compression.threshold();
+        this.metrics = metrics;
+        this.uri = uri;
+    }
+
+    @Override
+    public synchronized void outgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode) {
+        if (frame.getType().isControl()) {
+            nextOutgoingFrame(frame, callback, batchMode);
+            return;
+        }
+        if (frame.getType() != Frame.Type.CONTINUATION) {
+            // 分片消息的长度未知，总是压缩；单帧消息按阈值决定
+            outgoingCompressed = !frame.isFin() || frame.getPayloadLength() >= threshold;
+        }
+        if (!outgoingCompressed) {
+            nextOutgoingFrame(frame, callback, batchMode);
+            return;
+        }
+        var start = System.nanoTime();
+        var length = frame.getPayloadLength();
+        deflater.setInput(frame.hasPayload() ? frame.getPayload().duplicate() : ByteBuffer.allocate(0));
+        var output = ByteBuffer.allocate(Math.max(64, length / 2 + 16));
+        while (true) {
+            deflater.deflate(output, Deflater.SYNC_FLUSH);
+            if (output.hasRemaining()) {
+                break;
+            }
+            output = grow(output);
+        }
+        output.flip();
+        if (frame.isFin()) {
+            // 消息的压缩数据以同步刷新产生的 00 00 FF FF 结尾，发送时去掉
+            output.limit(output.limit() - TAIL.length);
+            // 发送方不引用之前的上下文总是合法的。jetty 9.4 的服务端把 server_no_context_takeover 应用到了接收方向，
+            // 协商了任意一个上下文参数时都重置，以兼容这类服务端
+            if (clientNoContextTakeover || serverNoContextTakeover) {
+                deflater.reset();
+            }
+        }
+        var compressed = new DataFrame(frame);
+        compressed.setRsv1(frame.getType() != Frame.Type.CONTINUATION);
+        compressed.setPayload(output);
+        metrics.onCompress(uri, length, output.remaining(), System.nanoTime() - start);
+        nextOutgoingFrame(compressed, callback, batchMode);
+    }
+
+    @Override
+    public void incomingFrame(Frame frame) {
+        if (frame.getType().isControl()) {
+            nextIncomingFrame(frame);
+            return;
+        }
+        if (frame.getType() != Frame.Type.CONTINUATION) {
+            incomingCompressed = frame.isRsv1();
+        }
+        if (!incomingCompressed) {
+            nextIncomingFrame(frame);
+            return;
+        }
+        var start = System.nanoTime();
+        var length = frame.getPayloadLength();
+        var output = ByteBuffer.allocate(Math.max(64, length * 4));
+        try {
+            if (frame.hasPayload()) {
+                output = inflate(frame.getPayload().duplicate(), output);
+            }
+            if (frame.isFin()) {
+                // 接收方保留上下文总是安全的：服务端重置了上下文时新消息不会引用之前的数据；
+                // 而jetty 9.4 的服务端协商了 server_no_context_takeover 后并不重置，因此这里从不重置
+                output = inflate(ByteBuffer.wrap(TAIL), output);
+                if (inflater.finished()) {
+                    // 服务端以 BFINAL 块结束了压缩流，下一条消息是新的压缩流
+                    inflater.reset();
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new BadPayloadException(e);
+        }
+        output.flip();
+        var inflated = new DataFrame(frame);
+        inflated.setRsv1(false);
+        inflated.setPayload(output);
+        metrics.onDecompress(uri, length, output.remaining(), System.nanoTime() - start);
+        nextIncomingFrame(inflated);
+    }
+
+    /**
+     * 解压输入并追加到输出缓冲区，输出不足时扩容；解压后的长度超过引擎允许的最大消息长度时拒绝，防止压缩炸弹
+     *
+     * @param input  压缩数据
+     * @param output 输出缓冲区，处于写模式
+     * @return 输出缓冲区，可能是扩容后的新缓冲区
+     */
+    private ByteBuffer inflate(ByteBuffer input, ByteBuffer output) throws DataFormatException {
+        var maxSize = frameLimit();
+        inflater.setInput(input);
+        while (true) {
+            var n = inflater.inflate(output);
+            if (maxSize > 0 && output.position() > maxSize) {
+                throw new MessageTooLargeException("inflated frame size exceeds " + maxSize + " bytes");
+            }
+            if (!output.hasRemaining()) {
+                output = grow(output);
+            } else if (n == 0 && (inflater.needsInput() || inflater.finished())) {
+                return output;
+            }
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer output) {
+        return ByteBuffer.allocate(output.capacity() * 2).put(output.flip());
+    }
+
+    private int frameLimit() {
+        var policy = getPolicy();
+        return policy == null ? -1 : Math.max(policy.getMaxTextMessageSize(), policy.getMaxBinaryMessageSize());
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        deflater.end();
+        inflater.end();
+        super.doStop();
+    }
+}
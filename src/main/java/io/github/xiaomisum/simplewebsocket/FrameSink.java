@@ -0,0 +1,121 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+package io.github.xiaomisum.simplewebsocket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 响应落盘的目标，收到的每个数据帧的负载直接写入通道，不在内存中拼接消息
+ * <p>
+ * 写入在jetty的回调线程中同步进行，同一连接的帧顺序回调，因此非线程安全；
+ * 只有 {@link FileChannel} 支持按 {@link SyncPolicy} 刷写
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 18:05
+ */
+final class FrameSink {
+
+    private final WritableByteChannel channel;
+    private final SyncPolicy sync;
+    private final boolean owned;
+    private long written;
+
+    /**
+     * 构造一个落盘目标
+     *
+     * @param channel 目标通道
+     * @param sync    刷写时机
+     * @param owned   交互结束时是否关闭通道
+     */
+    FrameSink(WritableByteChannel channel, SyncPolicy sync, boolean owned) {
+        this.channel = channel;
+        this.sync = sync == null ? SyncPolicy.NONE : sync;
+        this.owned = owned;
+    }
+
+    /**
+     * 写入一个数据帧的负载，不修改负载缓冲区的 position
+     *
+     * @param payload 帧负载，可能为null
+     * @param fin     是否为消息的最后一帧
+     * @throws IOException 写入失败时抛出
+     */
+    void write(ByteBuffer payload, boolean fin) throws IOException {
+        if (payload != null && payload.hasRemaining()) {
+            var view = payload.duplicate();
+            while (view.hasRemaining()) {
+                written += channel.write(view);
+            }
+        }
+        if (fin && sync == SyncPolicy.MESSAGE) {
+            force();
+        }
+    }
+
+    /**
+     * 交互完成，按刷写时机刷写，并关闭自行打开的通道
+     *
+     * @throws IOException 刷写或关闭失败时抛出
+     */
+    void finish() throws IOException {
+        try {
+            if (sync == SyncPolicy.COMPLETE) {
+                force();
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 关闭自行打开的通道，不刷写；重复调用无副作用
+     */
+    void close() throws IOException {
+        if (owned && channel.isOpen()) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 获取已写入的字节数
+     *
+     * @return 字节数
+     */
+    long written() {
+        return written;
+    }
+
+    private void force() throws IOException {
+        if (channel instanceof FileChannel file) {
+            file.force(false);
+        }
+    }
+}
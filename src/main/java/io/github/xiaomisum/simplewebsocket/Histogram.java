@@ -0,0 +1,185 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数-线性直方图，用于记录延迟等非负数值
+ * <p>
+ * 小于 128 的数值各占一个桶；更大的数值按2的幂分段，每段再线性均分为 64 个桶，
+ * 相对误差不超过 1/64（约1.6%），任意数值的记录都是一次数组下标计算加一次原子自增，可在多个线程中并发记录
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 17:45
+ */
+public class Histogram {
+
+    private static final int PRECISION = 6;
+    private static final int HALF = 1 << PRECISION;
+    private static final int LINEAR = HALF << 1;
+    private static final int SIZE = LINEAR + (63 - PRECISION) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * 记录一个数值，负数按0记录
+     *
+     * @param value 数值
+     */
+    public void record(long value) {
+        var v = Math.max(value, 0);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        min.accumulateAndGet(v, Math::min);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * 把另一个直方图的记录合并到当前直方图
+     *
+     * @param other 另一个直方图
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < SIZE; i++) {
+            var c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        min.accumulateAndGet(other.min.get(), Math::min);
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * 获取记录的数值个数
+     *
+     * @return 记录的数值个数
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * 获取记录的最小值
+     *
+     * @return 最小值，没有记录时返回0
+     */
+    public long min() {
+        return count() == 0 ? 0 : min.get();
+    }
+
+    /**
+     * 获取记录的最大值
+     *
+     * @return 最大值，没有记录时返回0
+     */
+    public long max() {
+        return count() == 0 ? 0 : max.get();
+    }
+
+    /**
+     * 获取记录的平均值
+     *
+     * @return 平均值，没有记录时返回0
+     */
+    public double mean() {
+        var count = count();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * 获取百分位数，返回所在桶的上界，不超过记录的最大值
+     *
+     * @param percentile 百分位，取值 0 到 100
+     * @return 百分位数，没有记录时返回0
+     */
+    public long percentile(double percentile) {
+        var total = count();
+        if (total == 0) {
+            return 0;
+        }
+        var rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < SIZE; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * 清空所有记录，与并发的记录之间不保证原子性
+     */
+    public void reset() {
+        for (int i = 0; i < SIZE; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        var shift = 63 - Long.numberOfLeadingZeros(value) - PRECISION;
+        var mantissa = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        var shift = (index - LINEAR) / HALF + 1;
+        long mantissa = (index - LINEAR) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + count() + ", min=" + min() + ", mean=" + String.format("%.1f", mean())
+                + ", p50=" + percentile(50) + ", p99=" + percentile(99) + ", max=" + max() + "}";
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+/**
+ * 客户端心跳选项，通过 {@link WebSocketEngine#keepalive(Keepalive)} 对引擎打开的所有连接生效
+ * <p>
+ * 连接在 interval 内没有收到任何帧时发送一个ping；ping发出后 timeout 内没有收到负载相同的pong，
+ * 连接被视为已失效并立即断开（状态码1006），不必等到请求超时。不可变对象，各方法返回修改后的新实例
+ *
+ * @param interval 空闲多久后发送ping（毫秒）
+ * @param timeout  等待pong的时长（毫秒）
+ * @author xiaomi
+ * Created at 2026/10/18 20:40
+ */
+public record Keepalive(long interval, long timeout) {
+
+    public Keepalive {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive: " + timeout);
+        }
+    }
+
+    /**
+     * 连接空闲 interval 后发送ping，等待pong的时长与 interval 相同
+     *
+     * @param interval 空闲多久后发送ping（毫秒）
+     * @return 心跳选项
+     */
+    public static Keepalive every(long interval) {
+        return new Keepalive(interval, interval);
+    }
+
+    /**
+     * 设置等待pong的时长
+     *
+     * @param timeout 等待时长（毫秒）
+     * @return 新的心跳选项
+     */
+    public Keepalive timeout(long timeout) {
+        return new Keepalive(interval, timeout);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 引擎级的心跳调度器，用引擎的共享定时器周期性地检查所有打开的连接，不为每条连接创建线程或定时任务
+ * <p>
+ * 检查周期为 interval 与 timeout 中较小者的四分之一（不小于10毫秒），因此发送ping与判定失效的时间误差不超过一个周期
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 20:48
+ */
+final class KeepaliveScheduler {
+
+    private final WebSocketEngine engine;
+    private final long interval;
+    private final long timeout;
+    private final long period;
+    private final Set<ServiceSocket> sockets = ConcurrentHashMap.newKeySet();
+    private volatile Scheduler.Task task;
+    private volatile boolean closed;
+
+    KeepaliveScheduler(WebSocketEngine engine, Keepalive keepalive) {
+        this.engine = engine;
+        this.interval = TimeUnit.MILLISECONDS.toNanos(keepalive.interval());
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(keepalive.timeout());
+        this.period = Math.max(10, Math.min(keepalive.interval(), keepalive.timeout()) / 4);
+    }
+
+    /**
+     * 连接打开后开始心跳，连接结束后自动移除
+     *
+     * @param socket 服务套接字
+     */
+    void register(ServiceSocket socket) {
+        socket.opened().thenRun(() -> {
+            socket.keepalive();
+            sockets.add(socket);
+        });
+        socket.completion().whenComplete((v, e) -> sockets.remove(socket));
+    }
+
+    void start() {
+        schedule();
+    }
+
+    private void schedule() {
+        if (!closed) {
+            task = engine.scheduler().schedule(this::check, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void check() {
+        try {
+            var now = System.nanoTime();
+            for (var socket : sockets) {
+                if (!socket.isConnected()) {
+                    sockets.remove(socket);
+                    continue;
+                }
+                var pingSentAt = socket.pingSentAt();
+                if (pingSentAt != 0) {
+                    if (now - pingSentAt >= timeout) {
+                        sockets.remove(socket);
+                        socket.abort(new TimeoutException("no pong within " + TimeUnit.NANOSECONDS.toMillis(timeout) + "ms"));
+                    }
+                } else if (now - socket.lastReceivedAt() >= interval) {
+                    socket.ping(now);
+                }
+            }
+        } finally {
+            schedule();
+        }
+    }
+
+    void close() {
+        closed = true;
+        var task = this.task;
+        if (task != null) {
+            task.cancel();
+        }
+        sockets.clear();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 压测报告，统计稳定阶段（爬坡结束之后）开始的交互
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 17:58
+ */
+public class LoadReport {
+
+    private final Duration elapsed;
+    private final long succeeded;
+    private final long timeouts;
+    private final Map<Integer, Long> closeStatuses;
+    private final Map<String, Long> failures;
+    private final Histogram latency;
+
+    LoadReport(Duration elapsed, long succeeded, long timeouts, Map<Integer, Long> closeStatuses,
+               Map<String, Long> failures, Histogram latency) {
+        this.elapsed = elapsed;
+        this.succeeded = succeeded;
+        this.timeouts = timeouts;
+        this.closeStatuses = Map.copyOf(closeStatuses);
+        this.failures = Map.copyOf(failures);
+        this.latency = latency;
+    }
+
+    /**
+     * 获取实际的统计时长，从稳定阶段开始到所有已发起的交互完成
+     *
+     * @return 统计时长
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * 获取完成的交互总数，包含失败的交互
+     *
+     * @return 交互总数
+     */
+    public long total() {
+        return succeeded + timeouts + errors();
+    }
+
+    /**
+     * 获取成功的交互数，即在超时前完成且服务端没有非正常关闭的交互
+     *
+     * @return 成功的交互数
+     */
+    public long succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * 获取超时的交互数，包含超时前已收到部分消息的交互，见 {@link Response#timedOut()}
+     *
+     * @return 超时的交互数
+     */
+    public long timeouts() {
+        return timeouts;
+    }
+
+    /**
+     * 获取出错的交互数，包含非正常关闭与连接失败
+     *
+     * @return 出错的交互数
+     */
+    public long errors() {
+        return closeStatuses.values().stream().mapToLong(Long::longValue).sum()
+                + failures.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 按关闭状态码统计的非正常关闭次数
+     *
+     * @return 关闭状态码到次数的映射
+     */
+    public Map<Integer, Long> closeStatuses() {
+        return closeStatuses;
+    }
+
+    /**
+     * 按异常类型统计的失败次数，例如连接失败
+     *
+     * @return 异常类名到次数的映射
+     */
+    public Map<String, Long> failures() {
+        return failures;
+    }
+
+    /**
+     * 获取每秒完成的交互数，按实际的统计时长计算
+     *
+     * @return 吞吐量
+     */
+    public double throughput() {
+        var seconds = elapsed.toNanos() / 1e9;
+        return seconds <= 0 ? 0 : total() / seconds;
+    }
+
+    /**
+     * 获取延迟直方图，单位为纳秒；开放模型下从计划开始时间起算，不受协调遗漏影响
+     *
+     * @return 延迟直方图
+     */
+    public Histogram latency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        elapsed     %.1f s
+                        total       %d (%.1f/s)
+                        succeeded   %d
+                        timeouts    %d
+                        closed      %s
+                        failures    %s
+                        latency ms  min %.3f  p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f""",
+                elapsed.toNanos() / 1e9, total(), throughput(), succeeded, timeouts, new TreeMap<>(closeStatuses), new TreeMap<>(failures),
+                latency.min() / 1e6, latency.percentile(50) / 1e6, latency.percentile(90) / 1e6,
+                latency.percentile(99) / 1e6, latency.percentile(99.9) / 1e6, latency.max() / 1e6);
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测执行器，以一个 {@link Request} 为模板反复执行交互并统计吞吐量、错误与延迟分布
+ * <p>
+ * 支持两种负载模型：
+ * <ul>
+ *     <li>封闭模型（{@link #concurrency(int)}）：固定数量的虚拟用户，每个用户完成一次交互后立即开始下一次</li>
+ *     <li>开放模型（{@link #rate(double)}）：按固定到达率发起交互，不等待之前的交互完成；
+ *     延迟从计划开始时间起算，被测服务变慢导致的发送推迟也计入延迟，不会产生协调遗漏</li>
+ * </ul>
+ * 爬坡阶段内用户数或到达率线性增长，只统计爬坡结束后开始的交互
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 18:06
+ */
+public class LoadRunner {
+
+    private final Request template;
+    private int concurrency = 1;
+    private double rate = 0;
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration rampUp = Duration.ZERO;
+
+    /**
+     * 构造一个压测执行器，模板请求在多个线程中并发执行，执行期间不应再修改
+     *
+     * @param template 模板请求
+     */
+    public LoadRunner(Request template) {
+        this.template = template;
+    }
+
+    /**
+     * 使用封闭模型，设置并发的虚拟用户数
+     *
+     * @param concurrency 虚拟用户数
+     * @return 当前执行器实例
+     */
+    public LoadRunner concurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        this.rate = 0;
+        return this;
+    }
+
+    /**
+     * 使用开放模型，设置每秒发起的交互数
+     *
+     * @param rate 每秒发起的交互数
+     * @return 当前执行器实例
+     */
+    public LoadRunner rate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive: " + rate);
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * 设置稳定阶段的时长，不包含爬坡阶段
+     *
+     * @param duration 稳定阶段的时长
+     * @return 当前执行器实例
+     */
+    public LoadRunner duration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * 设置爬坡阶段的时长，期间用户数或到达率从0线性增长到目标值
+     *
+     * @param rampUp 爬坡阶段的时长
+     * @return 当前执行器实例
+     */
+    public LoadRunner rampUp(Duration rampUp) {
+        if (rampUp.isNegative()) {
+            throw new IllegalArgumentException("ramp-up must not be negative: " + rampUp);
+        }
+        this.rampUp = rampUp;
+        return this;
+    }
+
+    /**
+     * 执行压测，阻塞到所有已发起的交互完成
+     *
+     * @return 压测报告
+     * @throws InterruptedException 如果等待过程中线程被中断
+     */
+    public LoadReport run() throws InterruptedException {
+        var start = System.nanoTime();
+        var recorder = new Recorder(start + rampUp.toNanos());
+        var end = start + rampUp.toNanos() + duration.toNanos();
+        if (rate > 0) {
+            runOpen(start, end, recorder);
+        } else {
+            runClosed(start, end, recorder);
+        }
+        return recorder.report();
+    }
+
+    private void runClosed(long start, long end, Recorder recorder) throws InterruptedException {
+        var users = new ArrayList<Thread>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            var startAt = start + rampUp.toNanos() * i / concurrency;
+            users.add(Thread.ofVirtual().name("load-user-" + i).start(() -> {
+                parkUntil(startAt);
+                while (System.nanoTime() < end) {
+                    var begin = System.nanoTime();
+                    try {
+                        recorder.record(begin, template.execute(), null);
+                    } catch (Exception e) {
+                        recorder.record(begin, null, e);
+                    }
+                }
+            }));
+        }
+        for (var user : users) {
+            user.join();
+        }
+    }
+
+    private void runOpen(long start, long end, Recorder recorder) throws InterruptedException {
+        // 计数包含发起方自身，发起结束后减去，归零时所有交互都已完成
+        var inFlight = new AtomicLong(1);
+        var drained = new CompletableFuture<Void>();
+        for (long n = 0; ; n++) {
+            var intended = start + arrivalOffset(n);
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            inFlight.incrementAndGet();
+            CompletableFuture<Response> exchange;
+            try {
+                exchange = template.executeAsync();
+            } catch (RuntimeException e) {
+                exchange = CompletableFuture.failedFuture(e);
+            }
+            exchange.whenComplete((response, failure) -> {
+                recorder.record(intended, response, failure);
+                if (inFlight.decrementAndGet() == 0) {
+                    drained.complete(null);
+                }
+            });
+        }
+        if (inFlight.decrementAndGet() == 0) {
+            drained.complete(null);
+        }
+        try {
+            drained.get();
+        } catch (ExecutionException ignored) {
+        }
+    }
+
+    /**
+     * 计算第 n 次交互的计划开始时间相对压测开始的偏移，爬坡阶段到达率线性增长
+     *
+     * @param n 交互序号，从0开始
+     * @return 偏移（纳秒）
+     */
+    long arrivalOffset(long n) {
+        var perNano = rate / 1e9;
+        var ramp = rampUp.toNanos();
+        var rampArrivals = perNano * ramp / 2;
+        if (n < rampArrivals) {
+            return (long) Math.sqrt(2 * ramp * n / perNano);
+        }
+        return (long) (ramp + (n - rampArrivals) / perNano);
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * 命令行入口，对指定地址执行压测并打印报告
+     * <pre>
+     * --url ws://host:port/path [--body text] [--concurrency N | --rate R] [--duration 秒] [--ramp-up 秒] [--timeout 秒]
+     * </pre>
+     *
+     * @param args 命令行参数
+     * @throws Exception 压测过程中可能抛出的异常
+     */
+    public static void main(String[] args) throws Exception {
+        var options = new HashMap<String, String>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        if (!options.containsKey("url")) {
+            System.err.println("usage: LoadRunner --url ws://host:port/path [--body text] [--concurrency N | --rate R] "
+                    + "[--duration seconds] [--ramp-up seconds] [--timeout seconds]");
+            return;
+        }
+        var request = new Request(options.get("url")).body(options.get("body"))
+                .timeout(Integer.parseInt(options.getOrDefault("timeout", "60")));
+        var runner = new LoadRunner(request)
+                .duration(Duration.ofMillis((long) (Double.parseDouble(options.getOrDefault("duration", "10")) * 1000)))
+                .rampUp(Duration.ofMillis((long) (Double.parseDouble(options.getOrDefault("ramp-up", "0")) * 1000)));
+        if (options.containsKey("rate")) {
+            runner.rate(Double.parseDouble(options.get("rate")));
+        } else {
+            runner.concurrency(Integer.parseInt(options.getOrDefault("concurrency", "1")));
+        }
+        System.out.println(runner.run());
+    }
+
+    /**
+     * 并发地记录交互结果
+     */
+    private static class Recorder {
+
+        private final long measureFrom;
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final Map<Integer, LongAdder> closeStatuses = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+        private final Histogram latency = new Histogram();
+
+        Recorder(long measureFrom) {
+            this.measureFrom = measureFrom;
+        }
+
+        void record(long intendedStart, Response response, Throwable failure) {
+            if (intendedStart < measureFrom) {
+                return;
+            }
+            latency.record(System.nanoTime() - intendedStart);
+            if (failure != null) {
+                var cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                failures.computeIfAbsent(cause.getClass().getSimpleName(), k -> new LongAdder()).increment();
+            } else if (response.timedOut()) {
+                timeouts.increment();
+            } else if (response.status() != 1000) {
+                closeStatuses.computeIfAbsent(response.status(), k -> new LongAdder()).increment();
+            } else {
+                succeeded.increment();
+            }
+        }
+
+        /**
+         * 生成报告，时长从稳定阶段开始计到全部交互完成，包括稳定阶段结束后仍在进行的交互
+         */
+        LoadReport report() {
+            var elapsed = Duration.ofNanos(System.nanoTime() - measureFrom);
+            var statuses = new HashMap<Integer, Long>();
+            closeStatuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            var errors = new HashMap<String, Long>();
+            failures.forEach((type, count) -> errors.put(type, count.sum()));
+            return new LoadReport(elapsed, succeeded.sum(), timeouts.sum(), statuses, errors, latency);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * WebSocket消息，一条完整的文本或二进制消息及其接收时间
+ * <p>
+ * 文本表示在第一次获取时解码并缓存，之后以相同字符集获取不再解码；已知文本的消息直接使用该文本，
+ * 负载在第一次获取字节时才按UTF-8编码
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 15:02
+ */
+public final class Message {
+
+    private final Type type;
+    private final String source;
+    private final long receivedAt;
+    private volatile byte[] payload;
+    private volatile Decoded decoded;
+    private int length = -1;
+
+    /**
+     * 构造一条消息
+     *
+     * @param type       消息类型
+     * @param payload    消息负载
+     * @param receivedAt 接收时间，{@link System#nanoTime()} 时间戳
+     */
+    Message(Type type, byte[] payload, long receivedAt) {
+        this.type = type;
+        this.source = null;
+        this.payload = payload;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * 构造一条已知文本的文本消息，负载在第一次获取字节时才编码
+     *
+     * @param text       消息文本
+     * @param receivedAt 接收时间，{@link System#nanoTime()} 时间戳
+     */
+    Message(String text, long receivedAt) {
+        this.type = Type.TEXT;
+        this.source = text;
+        this.receivedAt = receivedAt;
+        this.decoded = new Decoded(StandardCharsets.UTF_8, text);
+    }
+
+    /**
+     * 构造一条待发送的文本消息
+     *
+     * @param text 消息文本
+     * @return 文本消息，接收时间为0
+     */
+    public static Message text(String text) {
+        return new Message(Objects.requireNonNull(text, "text"), 0);
+    }
+
+    /**
+     * 构造一条待发送的二进制消息，不复制数组
+     *
+     * @param bytes 消息负载
+     * @return 二进制消息，接收时间为0
+     */
+    public static Message binary(byte[] bytes) {
+        return new Message(Type.BINARY, bytes, 0);
+    }
+
+    /**
+     * 获取消息类型
+     *
+     * @return 消息类型
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * 检查是否为文本消息
+     *
+     * @return 如果是文本消息返回true，否则返回false
+     */
+    public boolean isText() {
+        return type == Type.TEXT;
+    }
+
+    /**
+     * 获取消息负载，已知文本的消息在第一次获取时编码
+     *
+     * @return 消息负载
+     */
+    public byte[] bytes() {
+        var payload = this.payload;
+        if (payload == null) {
+            payload = source.getBytes(StandardCharsets.UTF_8);
+            this.payload = payload;
+        }
+        return payload;
+    }
+
+    /**
+     * 获取消息负载的只读视图，不复制数据
+     *
+     * @return 消息负载的只读 {@link ByteBuffer}
+     */
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(bytes()).asReadOnlyBuffer();
+    }
+
+    /**
+     * 使用编解码器从消息负载的只读视图解码出对象，不经过文本
+     *
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 对象
+     */
+    public <T> T decode(Codec<? extends T> codec) {
+        return codec.decode(buffer());
+    }
+
+    /**
+     * 获取消息负载的文本表示，按UTF-8解码，结果被缓存
+     *
+     * @return 消息文本
+     */
+    public String text() {
+        return text(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取消息负载按指定字符集解码的文本，结果被缓存，以其它字符集获取时重新解码
+     *
+     * @param charset 字符集
+     * @return 消息文本
+     */
+    public String text(Charset charset) {
+        var decoded = this.decoded;
+        if (decoded != null && decoded.charset.equals(charset)) {
+            return decoded.text;
+        }
+        var text = new String(bytes(), charset);
+        this.decoded = new Decoded(charset, text);
+        return text;
+    }
+
+    /**
+     * 获取消息负载按UTF-8解码的字符序列，适用于只需要扫描文本的场景
+     * <p>
+     * 已解码过时返回缓存的文本；负载全部是ASCII字符时返回直接读取负载的视图，不分配字符数组；否则解码并缓存
+     *
+     * @return 字符序列
+     */
+    public CharSequence chars() {
+        var decoded = this.decoded;
+        if (decoded != null && decoded.charset.equals(StandardCharsets.UTF_8)) {
+            return decoded.text;
+        }
+        var payload = bytes();
+        for (var b : payload) {
+            if (b < 0) {
+                return text();
+            }
+        }
+        return new AsciiSequence(payload, 0, payload.length);
+    }
+
+    /**
+     * 获取消息负载长度，已知文本的消息按UTF-8计算长度，不编码负载
+     *
+     * @return 负载长度（字节）
+     */
+    public int length() {
+        var payload = this.payload;
+        if (payload != null) {
+            return payload.length;
+        }
+        if (length < 0) {
+            length = utf8Length(source);
+        }
+        return length;
+    }
+
+    /**
+     * 计算文本按UTF-8编码后的字节数，与 {@link String#getBytes(Charset)} 一致，不成对的代理字符按替换字符 '?' 计1字节
+     */
+    private static int utf8Length(String text) {
+        var length = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            var c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 获取消息的接收时间
+     *
+     * @return {@link System#nanoTime()} 时间戳，只能用于计算时间间隔；待发送的消息为0
+     */
+    public long receivedAt() {
+        return receivedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Message{type=" + type + ", length=" + length() + ", receivedAt=" + receivedAt + "}";
+    }
+
+    private record Decoded(Charset charset, String text) {
+    }
+
+    /**
+     * 直接读取ASCII字节的字符序列
+     */
+    private record AsciiSequence(byte[] bytes, int offset, int length) implements CharSequence {
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) bytes[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new AsciiSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * 消息类型
+     */
+    public enum Type {
+        /**
+         * 文本消息
+         */
+        TEXT,
+        /**
+         * 二进制消息
+         */
+        BINARY
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.MessageTooLargeException;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 消息聚合器，将文本/二进制帧及其后续的continuation帧拼接为一条完整消息
+ * <p>
+ * jetty回调中的帧负载来自缓冲池，回调返回后会被复用，因此每帧只复制负载的有效区间（position..limit），
+ * 按帧分块保存；消息结束时单帧消息直接返回该块，多帧消息按总长度一次性拼接，避免反复扩容复制。
+ * 非线程安全，同一连接的帧由jetty顺序回调
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 14:20
+ */
+class MessageAggregator {
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private Frame.Type type;
+    private int size;
+
+    /**
+     * 追加一个数据帧
+     *
+     * @param frame   文本、二进制或continuation帧
+     * @param maxSize 消息的最大长度
+     * @return 如果该帧结束了一条消息返回true，此时可通过 {@link #take()} 取出消息
+     * @throws MessageTooLargeException 如果消息累计长度超过最大长度
+     */
+    boolean append(Frame frame, int maxSize) {
+        if (frame.getType() != Frame.Type.CONTINUATION) {
+            // 新消息开始，丢弃未结束的残留分片
+            chunks.clear();
+            size = 0;
+            type = frame.getType();
+        }
+        if (frame.hasPayload()) {
+            var payload = frame.getPayload();
+            if (maxSize > 0 && (long) size + payload.remaining() > maxSize) {
+                chunks.clear();
+                size = 0;
+                throw new MessageTooLargeException("message size exceeds " + maxSize + " bytes");
+            }
+            var chunk = new byte[payload.remaining()];
+            payload.duplicate().get(chunk);
+            chunks.add(chunk);
+            size += chunk.length;
+        }
+        return frame.isFin();
+    }
+
+    /**
+     * 获取当前消息的类型
+     *
+     * @return {@link Frame.Type#TEXT} 或 {@link Frame.Type#BINARY}
+     */
+    Frame.Type type() {
+        return type;
+    }
+
+    /**
+     * 取出已完成的消息并重置聚合器
+     *
+     * @return 恰好为消息长度的字节数组
+     */
+    byte[] take() {
+        byte[] message;
+        if (chunks.size() == 1) {
+            message = chunks.get(0);
+        } else {
+            message = new byte[size];
+            var offset = 0;
+            for (var chunk : chunks) {
+                System.arraycopy(chunk, 0, message, offset, chunk.length);
+                offset += chunk.length;
+            }
+        }
+        chunks.clear();
+        size = 0;
+        return message;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 响应中按接收顺序保存的消息序列
+ * <p>
+ * 容量不限时保存全部消息；指定容量时作为环形缓冲区，只保留最近的 capacity 条消息，
+ * 使长时间的订阅不会无限占用内存
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 15:10
+ */
+class MessageBuffer {
+
+    private final int capacity;
+    private Message[] elements;
+    private int head;
+    private int size;
+    private long total;
+
+    /**
+     * 构造一个消息序列
+     *
+     * @param capacity 最多保留的消息数，小于等于0表示不限
+     */
+    MessageBuffer(int capacity) {
+        this.capacity = capacity;
+        this.elements = new Message[capacity > 0 ? Math.min(capacity, 16) : 16];
+    }
+
+    /**
+     * 追加一条消息，环形模式下已满时覆盖最早的消息
+     *
+     * @param message 消息
+     */
+    synchronized void add(Message message) {
+        total++;
+        if (capacity > 0 && size == capacity) {
+            elements[head] = message;
+            head = (head + 1) % capacity;
+            return;
+        }
+        if (size == elements.length) {
+            var grown = capacity > 0 ? Math.min(capacity, size * 2) : size * 2;
+            elements = Arrays.copyOf(elements, grown);
+        }
+        elements[(head + size) % elements.length] = message;
+        size++;
+    }
+
+    /**
+     * 记录一条未保存内容的消息，只计入累计消息数
+     */
+    synchronized void skip() {
+        total++;
+    }
+
+    /**
+     * 按接收顺序复制当前保留的消息
+     *
+     * @return 消息列表
+     */
+    synchronized List<Message> snapshot() {
+        var list = new ArrayList<Message>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(elements[(head + i) % elements.length]);
+        }
+        return list;
+    }
+
+    /**
+     * 获取最近一条消息
+     *
+     * @return 最近一条消息，没有消息时返回null
+     */
+    synchronized Message last() {
+        return size == 0 ? null : elements[(head + size - 1) % elements.length];
+    }
+
+    /**
+     * 获取累计收到的消息数，包含已被覆盖的消息
+     *
+     * @return 消息数
+     */
+    synchronized long total() {
+        return total;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.SuspendToken;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Request#stream()} 的订阅，把连接上收到的消息按订阅者的需求推送给订阅者
+ * <p>
+ * 需求耗尽时挂起jetty会话的读取（{@link org.eclipse.jetty.websocket.api.Session#suspend()}），
+ * 订阅者再次请求时恢复读取，慢速订阅者不会在堆中堆积未处理的消息；
+ * 挂起前已解析出的消息暂存在队列中，等待下一次请求
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 16:05
+ */
+final class MessageSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super Message> subscriber;
+    private final ServiceSocket socket;
+    private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable failure;
+    private boolean terminated;
+    private SuspendToken suspended;
+
+    MessageSubscription(Flow.Subscriber<? super Message> subscriber, ServiceSocket socket) {
+        this.subscriber = subscriber;
+        this.socket = socket;
+    }
+
+    /**
+     * 收到一条完整消息，由jetty的读取线程调用；推送后没有剩余需求时挂起读取
+     *
+     * @param message 消息
+     */
+    void onMessage(Message message) {
+        if (cancelled || done) {
+            return;
+        }
+        queue.offer(message);
+        drain();
+        synchronized (this) {
+            var session = socket.getSession();
+            if (suspended == null && demand.get() == 0 && !cancelled && session != null) {
+                suspended = session.suspend();
+            }
+        }
+    }
+
+    /**
+     * 连接结束，队列中的消息推送完后通知订阅者完成或失败
+     *
+     * @param failure 失败原因，正常关闭时为null
+     */
+    void complete(Throwable failure) {
+        this.failure = failure;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            // Reactive Streams 规范 3.9：非正数的请求以 IllegalArgumentException 结束订阅
+            queue.clear();
+            complete(new IllegalArgumentException("non-positive request: " + n));
+            cancel();
+            return;
+        }
+        demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+        drain();
+        resume();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+        // 恢复读取，使关闭握手能够完成
+        synchronized (this) {
+            if (suspended != null) {
+                suspended.resume();
+                suspended = null;
+            }
+        }
+        socket.close();
+    }
+
+    private synchronized void resume() {
+        if (suspended != null && demand.get() > 0) {
+            suspended.resume();
+            suspended = null;
+        }
+    }
+
+    /**
+     * 串行地推送消息与结束信号，同一时刻只有一个线程进入循环
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            long requested = demand.get();
+            long emitted = 0;
+            while (emitted != requested && !cancelled) {
+                var message = queue.poll();
+                if (message == null) {
+                    break;
+                }
+                subscriber.onNext(message);
+                emitted++;
+            }
+            if (emitted > 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+            if (!cancelled && !terminated && done && queue.isEmpty()) {
+                terminated = true;
+                var failure = this.failure;
+                if (failure == null) {
+                    subscriber.onComplete();
+                } else {
+                    subscriber.onError(failure);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.net.URI;
+
+/**
+ * 指标监听器，在连接与交互的各个生命周期事件中被调用，用于汇总跨请求的指标
+ * <p>
+ * 通过 {@link WebSocketEngine#metrics(MetricsListener)} 注册到引擎，引擎打开的所有连接都会回调；
+ * 回调在jetty的I/O线程或调用方线程中执行，实现必须线程安全且不能阻塞。默认实现见 {@link DefaultMetricsListener}
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 19:05
+ */
+public interface MetricsListener {
+
+    /**
+     * 不做任何事的监听器
+     */
+    MetricsListener NOOP = new MetricsListener() {
+    };
+
+    /**
+     * 开始建立连接
+     *
+     * @param uri 服务地址
+     */
+    default void onConnect(URI uri) {
+    }
+
+    /**
+     * 连接打开
+     *
+     * @param uri          服务地址
+     * @param connectNanos 从开始建立连接到打开的耗时（纳秒）
+     */
+    default void onOpen(URI uri, long connectNanos) {
+    }
+
+    /**
+     * 发出一条消息
+     *
+     * @param uri   服务地址
+     * @param bytes 消息负载字节数
+     */
+    default void onSend(URI uri, long bytes) {
+    }
+
+    /**
+     * 收到一个数据帧
+     *
+     * @param uri   服务地址
+     * @param bytes 帧负载字节数
+     */
+    default void onFrame(URI uri, long bytes) {
+    }
+
+    /**
+     * 收到一条完整消息
+     *
+     * @param uri     服务地址
+     * @param message 消息
+     */
+    default void onMessage(URI uri, Message message) {
+    }
+
+    /**
+     * 按 permessage-deflate 压缩了一个发出的数据帧，见 {@link Request#compression(Compression)}
+     *
+     * @param uri        服务地址
+     * @param bytes      压缩前的字节数
+     * @param compressed 压缩后的字节数
+     * @param nanos      压缩耗时（纳秒），在调用线程中同步执行，近似于消耗的CPU时间
+     */
+    default void onCompress(URI uri, long bytes, long compressed, long nanos) {
+    }
+
+    /**
+     * 按 permessage-deflate 解压了一个收到的数据帧
+     *
+     * @param uri        服务地址
+     * @param compressed 解压前的字节数
+     * @param bytes      解压后的字节数
+     * @param nanos      解压耗时（纳秒）
+     */
+    default void onDecompress(URI uri, long compressed, long bytes, long nanos) {
+    }
+
+    /**
+     * 一次交互完成
+     *
+     * @param uri          服务地址
+     * @param latencyNanos 从开始到完成的耗时（纳秒）
+     */
+    default void onExchange(URI uri, long latencyNanos) {
+    }
+
+    /**
+     * 收到心跳ping的pong，见 {@link WebSocketEngine#keepalive(Keepalive)}
+     *
+     * @param uri      服务地址
+     * @param rttNanos 往返时间（纳秒）
+     */
+    default void onPong(URI uri, long rttNanos) {
+    }
+
+    /**
+     * 发送队列已满，新消息按溢出策略被丢弃、拒绝或挤掉最早的消息，见 {@link SendQueue}
+     *
+     * @param uri      服务地址
+     * @param overflow 溢出策略
+     */
+    default void onOverflow(URI uri, OverflowPolicy overflow) {
+    }
+
+    /**
+     * 已打开的连接关闭
+     *
+     * @param uri        服务地址
+     * @param statusCode 关闭状态码
+     */
+    default void onClose(URI uri, int statusCode) {
+    }
+
+    /**
+     * 连接出错，包括连接失败
+     *
+     * @param uri   服务地址
+     * @param cause 错误原因
+     */
+    default void onError(URI uri, Throwable cause) {
+    }
+}
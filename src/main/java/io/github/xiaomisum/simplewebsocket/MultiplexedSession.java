@@ -0,0 +1,215 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 多路复用会话，多个并发的逻辑请求共用一条连接
+ * <p>
+ * 每次调用分配一个关联ID，由 {@link Correlator} 写入发出的消息；收到消息时读取其中的关联ID，
+ * 从待应答的调用中找到对应的 Future 完成。每次调用有独立的超时，由引擎的共享定时器触发；
+ * 连接关闭时所有未完成的调用以 {@link IOException} 失败
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 17:32
+ */
+public class MultiplexedSession implements AutoCloseable {
+
+    private final WebSocketEngine engine;
+    private final ServiceSocket socket;
+    private final Correlator correlator;
+    private final long timeout;
+    private final Map<String, CompletableFuture<Message>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * 构造一个多路复用会话，消息监听在连接建立前注册
+     *
+     * @param engine     WebSocket客户端引擎
+     * @param socket     尚未打开的服务套接字
+     * @param correlator 关联ID提取器
+     * @param timeout    默认的单次调用超时时间（毫秒）
+     */
+    MultiplexedSession(WebSocketEngine engine, ServiceSocket socket, Correlator correlator, long timeout) {
+        this.engine = engine;
+        this.socket = socket;
+        this.correlator = correlator;
+        this.timeout = timeout;
+        socket.listen(this::onMessage);
+        socket.completion().whenComplete((v, e) -> fail(new IOException("multiplexed session closed", e)));
+    }
+
+    /**
+     * 发送文本消息并等待应答，使用默认的超时时间
+     *
+     * @param message 文本消息
+     * @return 应答消息的 Future
+     */
+    public CompletableFuture<Message> call(String message) {
+        return call(message, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发送文本消息并等待应答
+     *
+     * @param message  文本消息
+     * @param duration 超时时长
+     * @param unit     时间单位
+     * @return 应答消息的 Future，超时时以 {@link TimeoutException} 失败
+     */
+    public CompletableFuture<Message> call(String message, long duration, TimeUnit unit) {
+        return call(id -> socket.enqueue(correlator.inject(id, message)), duration, unit);
+    }
+
+    /**
+     * 发送二进制消息并等待应答，使用默认的超时时间
+     *
+     * @param message 二进制消息
+     * @return 应答消息的 Future
+     */
+    public CompletableFuture<Message> call(byte[] message) {
+        return call(message, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发送二进制消息并等待应答
+     *
+     * @param message  二进制消息
+     * @param duration 超时时长
+     * @param unit     时间单位
+     * @return 应答消息的 Future，超时时以 {@link TimeoutException} 失败
+     */
+    public CompletableFuture<Message> call(byte[] message, long duration, TimeUnit unit) {
+        return call(id -> socket.enqueue(correlator.inject(id, message)), duration, unit);
+    }
+
+    private CompletableFuture<Message> call(Function<String, CompletableFuture<Void>> send, long duration, TimeUnit unit) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("multiplexed session closed"));
+        }
+        var id = Long.toString(sequence.incrementAndGet());
+        var reply = new CompletableFuture<Message>();
+        pending.put(id, reply);
+        var timer = engine.scheduler().schedule(() -> reply.completeExceptionally(
+                new TimeoutException("no reply for call " + id + " within " + duration + " " + unit)), duration, unit);
+        reply.whenComplete((m, e) -> {
+            timer.cancel();
+            pending.remove(id);
+        });
+        // 入队后连接可能已关闭，补一次检查，避免调用永远等不到失败
+        if (closed) {
+            reply.completeExceptionally(new IOException("multiplexed session closed"));
+            return reply;
+        }
+        try {
+            send.apply(id).whenComplete((v, e) -> {
+                if (e != null) {
+                    reply.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            reply.completeExceptionally(e);
+        }
+        return reply;
+    }
+
+    /**
+     * 收到一条完整消息，按关联ID路由给待应答的调用；没有关联ID或找不到调用的消息被忽略
+     *
+     * @param message 消息
+     */
+    private void onMessage(Message message) {
+        String id;
+        try {
+            id = correlator.extract(message);
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (id == null) {
+            return;
+        }
+        var reply = pending.remove(id);
+        if (reply != null) {
+            reply.complete(message);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        closed = true;
+        for (var reply : pending.values()) {
+            reply.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 获取连接的发送队列
+     *
+     * @return 发送队列，未设置 {@link Request#sendQueue(int, long, OverflowPolicy)} 时返回null
+     */
+    public SendQueue sendQueue() {
+        return socket.sendQueue();
+    }
+
+    /**
+     * 获取等待应答的调用数
+     *
+     * @return 等待应答的调用数
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 检查会话是否仍然可用
+     *
+     * @return 如果连接打开且未关闭返回true，否则返回false
+     */
+    public boolean isOpen() {
+        return !closed && socket.isConnected();
+    }
+
+    /**
+     * 关闭会话及其连接，未完成的调用以 {@link IOException} 失败
+     */
+    @Override
+    public void close() {
+        fail(new IOException("multiplexed session closed"));
+        socket.close();
+    }
+}
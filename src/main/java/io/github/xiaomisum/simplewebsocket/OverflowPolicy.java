@@ -0,0 +1,58 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+/**
+ * 发送队列满时对新消息的处理方式，见 {@link SendQueue}
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 21:00
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 阻塞发送线程直到队列有空间或连接关闭，不能在jetty的I/O线程中使用
+     */
+    BLOCK,
+
+    /**
+     * 立即以 {@link java.util.concurrent.RejectedExecutionException} 拒绝新消息
+     */
+    FAIL,
+
+    /**
+     * 丢弃队列中最早的尚未写出的消息，为新消息腾出空间；已交给jetty写出的消息不会被丢弃
+     */
+    DROP_OLDEST,
+
+    /**
+     * 丢弃新消息
+     */
+    DROP_NEWEST
+}
@@ -0,0 +1,278 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 持久会话，连接异常关闭后按 {@link Reconnect} 策略自动重连，并重新发送订阅消息
+ * <p>
+ * 同一时刻只有一条连接，所有连接收到的消息按顺序交给同一个消费者；断开期间服务端推送的消息不会补发，
+ * 需要时由订阅消息（例如带上最后收到的序号）向服务端补取。
+ * 会话由 {@link #close()} 结束，或在正常关闭、不可重连的状态码、超过重连次数时结束，见 {@link #closed()}
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 20:25
+ */
+public class PersistentSession implements AutoCloseable {
+
+    /**
+     * 为服务套接字发起连接
+     */
+    interface Connector {
+
+        Future<Session> connect(ServiceSocket socket) throws Exception;
+    }
+
+    private final WebSocketEngine engine;
+    private final Reconnect reconnect;
+    private final Consumer<Message> consumer;
+    private final Connector connector;
+    private final Function<ServiceSocket, CompletableFuture<Void>> subscribe;
+    private final CompletableFuture<Void> closed = new CompletableFuture<>();
+    private volatile ServiceSocket socket;
+    private volatile Scheduler.Task pending;
+    private volatile boolean closing;
+    private int attempts;
+    private volatile long openedAt;
+    private volatile long reconnects;
+
+    /**
+     * 构造一个持久会话，由 {@link #start()} 发起第一次连接
+     *
+     * @param engine    WebSocket客户端引擎
+     * @param reconnect 重连策略
+     * @param consumer  消息消费者
+     * @param connector 连接发起函数
+     * @param subscribe 连接打开后发送订阅消息的函数
+     */
+    PersistentSession(WebSocketEngine engine, Reconnect reconnect, Consumer<Message> consumer, Connector connector,
+                      Function<ServiceSocket, CompletableFuture<Void>> subscribe) {
+        this.engine = engine;
+        this.reconnect = reconnect;
+        this.consumer = consumer;
+        this.connector = connector;
+        this.subscribe = subscribe;
+    }
+
+    PersistentSession start() {
+        connect();
+        return this;
+    }
+
+    /**
+     * 建立一条新连接，连接结束时决定是否重连；每条连接只处理一次结束
+     */
+    private void connect() {
+        if (closing) {
+            return;
+        }
+        var socket = new ServiceSocket(null, null, null);
+        socket.listen(consumer);
+        this.socket = socket;
+        openedAt = 0;
+        var ended = new AtomicBoolean();
+        Consumer<Throwable> end = failure -> {
+            if (ended.compareAndSet(false, true)) {
+                ended(socket, failure);
+            }
+        };
+        socket.completion().whenComplete((v, e) -> end.accept(e));
+        socket.opened().thenCompose(session -> {
+            openedAt = System.nanoTime();
+            return subscribe.apply(socket);
+        }).whenComplete((v, e) -> {
+            // 订阅消息没能发出时重建连接，1001 属于可重连的状态码
+            if (e != null && socket.isConnected()) {
+                socket.close(StatusCode.SHUTDOWN, "resubscribe failed");
+            }
+        });
+        try {
+            if (connector.connect(socket) instanceof CompletableFuture<Session> future) {
+                future.whenComplete((session, e) -> {
+                    if (e != null) {
+                        end.accept(e);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            end.accept(e);
+        }
+        // 连接过程中被关闭
+        if (closing) {
+            socket.close();
+        }
+    }
+
+    /**
+     * 一条连接结束，按状态码与重连策略安排下一次连接或结束会话
+     *
+     * @param socket  结束的连接
+     * @param failure 连接失败的原因，正常关闭时为null
+     */
+    private void ended(ServiceSocket socket, Throwable failure) {
+        if (closing) {
+            closed.complete(null);
+            return;
+        }
+        var status = socket.closeStatus();
+        if (status == StatusCode.NORMAL) {
+            closed.complete(null);
+            return;
+        }
+        if (!reconnect.retry(status)) {
+            closed.completeExceptionally(new IOException("persistent session closed: " + status, failure));
+            return;
+        }
+        int attempt;
+        synchronized (this) {
+            // 连接稳定运行过才从第一次重连开始退避，打开后很快断开仍按连续失败计数
+            var openedAt = this.openedAt;
+            if (openedAt != 0 && System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(reconnect.maxDelay())) {
+                attempts = 0;
+            }
+            attempt = ++attempts;
+        }
+        if (reconnect.maxAttempts() > 0 && attempt > reconnect.maxAttempts()) {
+            closed.completeExceptionally(new IOException("persistent session gave up after " + reconnect.maxAttempts() + " reconnect attempts", failure));
+            return;
+        }
+        reconnects++;
+        try {
+            pending = engine.scheduler().schedule(this::connect, reconnect.delay(attempt), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            closed.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 在当前连接上异步发送文本消息
+     *
+     * @param message 文本消息
+     * @return 消息写出后完成的 Future，当前没有打开的连接时以 {@link IOException} 失败
+     */
+    public CompletableFuture<Void> sendMessageAsync(String message) {
+        var socket = this.socket;
+        if (socket == null || !socket.isConnected()) {
+            return CompletableFuture.failedFuture(new IOException("persistent session is reconnecting"));
+        }
+        return socket.enqueue(message);
+    }
+
+    /**
+     * 在当前连接上异步发送二进制消息
+     *
+     * @param message 二进制消息
+     * @return 消息写出后完成的 Future，当前没有打开的连接时以 {@link IOException} 失败
+     */
+    public CompletableFuture<Void> sendMessageAsync(byte[] message) {
+        var socket = this.socket;
+        if (socket == null || !socket.isConnected()) {
+            return CompletableFuture.failedFuture(new IOException("persistent session is reconnecting"));
+        }
+        return socket.enqueue(message);
+    }
+
+    /**
+     * 获取会话结束的 Future
+     *
+     * @return 调用 {@link #close()} 或服务端正常关闭时正常完成，不可重连或超过重连次数时异常完成
+     */
+    public CompletableFuture<Void> closed() {
+        return closed;
+    }
+
+    /**
+     * 获取已安排的重连次数
+     *
+     * @return 重连次数
+     */
+    public long reconnects() {
+        return reconnects;
+    }
+
+    /**
+     * 获取当前连接的心跳往返时间直方图（纳秒），重连后重新记录
+     *
+     * @return 往返时间直方图，没有连接、引擎未启用心跳或尚未收到心跳pong时返回null
+     */
+    public Histogram rtt() {
+        var socket = this.socket;
+        return socket == null ? null : socket.rtt();
+    }
+
+    /**
+     * 获取当前连接的发送队列，重连后是新的队列
+     *
+     * @return 发送队列，没有连接或未设置 {@link Request#sendQueue(int, long, OverflowPolicy)} 时返回null
+     */
+    public SendQueue sendQueue() {
+        var socket = this.socket;
+        return socket == null ? null : socket.sendQueue();
+    }
+
+    /**
+     * 检查当前是否有打开的连接
+     *
+     * @return 有打开的连接返回true，正在重连或已结束返回false
+     */
+    public boolean isConnected() {
+        var socket = this.socket;
+        return socket != null && socket.isConnected();
+    }
+
+    /**
+     * 结束会话，取消尚未发起的重连并正常关闭当前连接
+     */
+    @Override
+    public void close() {
+        closing = true;
+        var pending = this.pending;
+        if (pending != null) {
+            pending.cancel();
+        }
+        var socket = this.socket;
+        if (socket != null) {
+            socket.close();
+        }
+        if (socket == null || !socket.isConnected()) {
+            closed.complete(null);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.StatusCode;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 持久会话的重连策略，通过 {@link Request#subscribe(java.util.function.Consumer, Reconnect)} 使用
+ * <p>
+ * 不可变对象，各方法返回修改后的新实例。第n次重连前等待 [0, min(maxDelay, initialDelay * multiplier^(n-1))] 之间的随机时长（full jitter），
+ * 网关重启后断开的大量客户端不会在同一时刻重连。连接保持打开不少于 maxDelay 后重连次数才清零，
+ * 接受连接后立即关闭的网关不会让客户端一直以最短的等待时长重连
+ *
+ * @param initialDelay 第一次重连的最大等待时长（毫秒）
+ * @param maxDelay     等待时长的上限（毫秒）
+ * @param multiplier   每次失败后等待时长的增长倍数
+ * @param maxAttempts  连续重连的最大次数，0表示不限制
+ * @author xiaomi
+ * Created at 2026/10/18 20:10
+ */
+public record Reconnect(long initialDelay, long maxDelay, double multiplier, int maxAttempts) {
+
+    public Reconnect {
+        if (initialDelay <= 0 || maxDelay < initialDelay) {
+            throw new IllegalArgumentException("delays must satisfy 0 < initialDelay <= maxDelay: " + initialDelay + ", " + maxDelay);
+        }
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("multiplier must be at least 1: " + multiplier);
+        }
+        if (maxAttempts < 0) {
+            throw new IllegalArgumentException("maxAttempts must not be negative: " + maxAttempts);
+        }
+    }
+
+    /**
+     * 默认策略：从500毫秒开始按2倍增长，最多等待30秒，不限制重连次数
+     *
+     * @return 重连策略
+     */
+    public static Reconnect backoff() {
+        return new Reconnect(500, 30_000, 2, 0);
+    }
+
+    /**
+     * 设置第一次重连的最大等待时长
+     *
+     * @param initialDelay 等待时长（毫秒）
+     * @return 新的重连策略
+     */
+    public Reconnect initialDelay(long initialDelay) {
+        return new Reconnect(initialDelay, Math.max(initialDelay, maxDelay), multiplier, maxAttempts);
+    }
+
+    /**
+     * 设置等待时长的上限
+     *
+     * @param maxDelay 等待时长（毫秒）
+     * @return 新的重连策略
+     */
+    public Reconnect maxDelay(long maxDelay) {
+        return new Reconnect(initialDelay, maxDelay, multiplier, maxAttempts);
+    }
+
+    /**
+     * 设置每次失败后等待时长的增长倍数
+     *
+     * @param multiplier 增长倍数，不小于1
+     * @return 新的重连策略
+     */
+    public Reconnect multiplier(double multiplier) {
+        return new Reconnect(initialDelay, maxDelay, multiplier, maxAttempts);
+    }
+
+    /**
+     * 设置连续重连的最大次数，超过后会话以失败结束
+     *
+     * @param maxAttempts 最大次数，0表示不限制
+     * @return 新的重连策略
+     */
+    public Reconnect maxAttempts(int maxAttempts) {
+        return new Reconnect(initialDelay, maxDelay, multiplier, maxAttempts);
+    }
+
+    /**
+     * 判断以指定状态码关闭的连接是否需要重连
+     * <p>
+     * 正常关闭不重连；协议错误、不支持的数据、数据无效、违反策略、消息过大与缺少扩展重连后仍会以相同原因关闭，也不重连；
+     * 其余状态码（如网关重启的1001、异常断开的1006、服务端错误的1011）以及连接失败都重连
+     *
+     * @param statusCode 关闭状态码，连接未建立时为0
+     * @return 是否需要重连
+     */
+    boolean retry(int statusCode) {
+        return switch (statusCode) {
+            case StatusCode.NORMAL, StatusCode.PROTOCOL, StatusCode.BAD_DATA, StatusCode.BAD_PAYLOAD,
+                 StatusCode.POLICY_VIOLATION, StatusCode.MESSAGE_TOO_LARGE, StatusCode.REQUIRED_EXTENSION -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * 计算第n次重连前的等待时长
+     *
+     * @param attempt 连续重连的次数，从1开始
+     * @return 等待时长（毫秒）
+     */
+    long delay(int attempt) {
+        var ceiling = Math.min(maxDelay, initialDelay * Math.pow(multiplier, attempt - 1));
+        return ThreadLocalRandom.current().nextLong((long) ceiling + 1);
+    }
+}
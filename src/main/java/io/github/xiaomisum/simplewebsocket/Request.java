@@ -29,18 +29,41 @@
 package io.github.xiaomisum.simplewebsocket;
 
 
-import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
 import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
-import org.eclipse.jetty.websocket.client.HttpClientProvider;
-import org.eclipse.jetty.websocket.client.WebSocketClient;
-import org.eclipse.jetty.websocket.common.scopes.SimpleContainerScope;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * WebSocket请求类，用于构建和执行WebSocket请求
@@ -51,6 +74,14 @@ import java.util.function.Function;
 public class Request {
     private String body;
     private byte[] bytes;
+    private ByteBuffer buffer;
+    private Encoded<?> encoded;
+    private Callable<ReadableByteChannel> upload;
+    private int chunkSize = ChunkedUpload.DEFAULT_CHUNK_SIZE;
+    private Callable<FrameSink> sink;
+    private Compression compression;
+    private Charset charset = StandardCharsets.UTF_8;
+    private SendLimits sendLimits;
 
     private String url;
 
@@ -60,6 +91,26 @@ public class Request {
 
     private Map<String, Object> query;
 
+    private WebSocketEngine engine;
+
+    private boolean keepAlive = false;
+
+    private int retain = 0;
+
+    private Predicate<ByteBuffer> completeWhen;
+
+    private final List<List<Message>> batches = new ArrayList<>();
+
+    /**
+     * 冻结的请求的全部设置，为null表示请求仍可修改；设置保存在冻结时复制出的私有副本中，
+     * 副本在构造期间写完、之后不再修改，并且只经由这个final字段发布
+     */
+    private final Request frozen;
+
+    /**
+     * 私有副本在冻结时预先计算的地址与握手参数，只在冻结期间写入
+     */
+    private Template template;
 
     /**
      * 构造一个新的WebSocket请求
@@ -68,6 +119,95 @@ public class Request {
      */
     public Request(String url) {
         this.url = url;
+        this.frozen = null;
+    }
+
+    /**
+     * 冻结请求，见 {@link #freeze()}
+     *
+     * @param source 被冻结的请求
+     */
+    private Request(Request source) {
+        this.frozen = source.copy();
+    }
+
+    /**
+     * 复制请求的全部设置，预先计算服务地址、查询字符串、握手请求头与扩展，得到冻结请求的私有副本
+     *
+     * @return 私有副本
+     */
+    private Request copy() {
+        var copy = new Request(url);
+        copy.body = body;
+        copy.bytes = bytes;
+        copy.buffer = buffer == null ? null : buffer.asReadOnlyBuffer();
+        copy.encoded = encoded;
+        copy.upload = upload;
+        copy.chunkSize = chunkSize;
+        copy.sink = sink;
+        copy.compression = compression;
+        copy.charset = charset;
+        copy.sendLimits = sendLimits;
+        copy.timeout = timeout;
+        copy.headers = headers == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        copy.query = query == null ? null : Collections.unmodifiableMap(new LinkedHashMap<>(query));
+        copy.engine = engine;
+        copy.keepAlive = keepAlive;
+        copy.retain = retain;
+        copy.completeWhen = completeWhen;
+        batches.stream().filter(batch -> !batch.isEmpty()).map(List::copyOf).forEach(copy.batches::add);
+        var upgradeHeaders = new LinkedHashMap<String, List<String>>();
+        copy.headers.forEach((name, value) -> upgradeHeaders.put(name, Collections.singletonList(value)));
+        var extensions = compression == null ? List.<ExtensionConfig>of() : List.of(ExtensionConfig.parse(compression.offer()));
+        var queryString = copy.getQueryString();
+        try {
+            copy.template = new Template(new URI(url + queryString), queryString, Collections.unmodifiableMap(upgradeHeaders), extensions);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("invalid url: " + url + queryString, e);
+        }
+        return copy;
+    }
+
+    /**
+     * 获取保存设置的请求，冻结的请求返回其私有副本
+     */
+    private Request settings() {
+        return frozen == null ? this : frozen;
+    }
+
+    /**
+     * 冻结请求，返回一个不可修改的请求模板，当前请求不受影响
+     * <p>
+     * 冻结时复制请求头、查询参数与追加的消息，编码一次查询字符串、解析服务地址并准备好握手请求头与扩展；之后每次执行直接使用准备好的结果，
+     * 不再拼接或解析字符串。冻结的设置只经由final字段发布，冻结后的请求可以安全发布给多个线程并发、反复执行，
+     * 例如交给 {@link LoadRunner} 或 {@link ScatterGather}，调用任何设置方法都会抛出 {@link IllegalStateException}。
+     * <p>
+     * {@link #body(ByteBuffer)} 的缓冲区冻结为只读视图，每次发送复制一次，并发执行互不影响，冻结后调用方不能再修改其内容；
+     * 其余请求体对象、编解码器与完成条件只复制引用，需要本身线程安全，{@link #body(InputStream)} 的输入流仍然只能发送一次
+     *
+     * @return 冻结的请求，当前请求已冻结时返回自身
+     * @throws IllegalArgumentException 如果服务地址格式不正确
+     */
+    public Request freeze() {
+        return frozen == null ? new Request(this) : this;
+    }
+
+    /**
+     * 获取请求是否已冻结
+     *
+     * @return 是否已冻结
+     */
+    public boolean frozen() {
+        return frozen != null;
+    }
+
+    /**
+     * 检查请求未冻结，设置方法修改字段前调用
+     */
+    private void requireMutable() {
+        if (frozen != null) {
+            throw new IllegalStateException("request template is frozen");
+        }
     }
 
     /**
@@ -77,6 +217,7 @@ public class Request {
      * @return 当前请求实例
      */
     public Request body(String body) {
+        requireMutable();
         this.body = body;
         return this;
     }
@@ -88,10 +229,148 @@ public class Request {
      * @return 当前请求实例
      */
     public Request bytes(byte[] bytes) {
+        requireMutable();
         this.bytes = bytes;
         return this;
     }
 
+    /**
+     * 设置二进制请求体，发送时直接把调用方的堆内或直接缓冲区交给jetty，不复制到堆上的数组
+     * <p>
+     * 发送缓冲区 position 到 limit 的内容，不改变其 position 与 limit；设置后优先于 {@link #bytes(byte[])} 与 {@link #body(String)}。
+     * 写出时负载被原地掩码、写出后还原，因此请求执行期间不能修改缓冲区，也不能并发执行同一个请求；
+     * 需要并发执行时传入只读缓冲区，每次发送复制一次。详见 {@link ServiceSocket#sendMessageAsync(ByteBuffer)}
+     *
+     * @param buffer 请求体缓冲区
+     * @return 当前请求实例
+     */
+    public Request body(ByteBuffer buffer) {
+        requireMutable();
+        this.buffer = buffer;
+        return this;
+    }
+
+    /**
+     * 设置类型化的请求体，每次执行时用编解码器编码一次，编码结果直接交给jetty写出，不再复制
+     * <p>
+     * 消息类型由 {@link Codec#type()} 决定；设置后优先于 {@link #body(ByteBuffer)}、{@link #bytes(byte[])} 与 {@link #body(String)}
+     *
+     * @param value 请求体对象
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 当前请求实例
+     */
+    public <T> Request body(T value, Codec<? super T> codec) {
+        requireMutable();
+        this.encoded = new Encoded<>(value, Objects.requireNonNull(codec, "codec"));
+        return this;
+    }
+
+    /**
+     * 设置以文件内容作为二进制请求体，文件作为一条分片消息分块读取并发送，内存占用与文件大小无关
+     * <p>
+     * 每次执行时重新打开文件；设置后优先于其它请求体
+     *
+     * @param file 文件路径
+     * @return 当前请求实例
+     */
+    public Request file(Path file) {
+        requireMutable();
+        Objects.requireNonNull(file, "file");
+        this.upload = () -> FileChannel.open(file, StandardOpenOption.READ);
+        return this;
+    }
+
+    /**
+     * 设置以输入流的内容作为二进制请求体，输入流作为一条分片消息分块读取并发送，发送结束后关闭输入流
+     * <p>
+     * 输入流只能被读取一次，因此请求只能执行一次；设置后优先于其它请求体
+     *
+     * @param stream 输入流
+     * @return 当前请求实例
+     */
+    public Request body(InputStream stream) {
+        requireMutable();
+        Objects.requireNonNull(stream, "stream");
+        this.upload = () -> Channels.newChannel(stream);
+        return this;
+    }
+
+    /**
+     * 设置分块发送文件或输入流时每个分片的大小
+     *
+     * @param chunkSize 分片字节数，小于等于0时使用默认的64KiB
+     * @return 当前请求实例
+     */
+    public Request chunkSize(int chunkSize) {
+        requireMutable();
+        this.chunkSize = chunkSize > 0 ? chunkSize : ChunkedUpload.DEFAULT_CHUNK_SIZE;
+        return this;
+    }
+
+    /**
+     * 追加一条待发送的文本消息，连接打开后在请求体之后依次发送
+     *
+     * @param text 文本消息
+     * @return 当前请求实例
+     */
+    public Request message(String text) {
+        return message(Message.text(text));
+    }
+
+    /**
+     * 追加一条待发送的二进制消息，连接打开后在请求体之后依次发送
+     *
+     * @param bytes 二进制消息
+     * @return 当前请求实例
+     */
+    public Request message(byte[] bytes) {
+        return message(Message.binary(bytes));
+    }
+
+    /**
+     * 追加一条待发送的消息，连接打开后在请求体之后依次发送
+     * <p>
+     * 追加的消息以流水线方式发送，不等待前一条写出；两个 {@link #flush()} 之间的消息由jetty合并写出
+     *
+     * @param message 消息
+     * @return 当前请求实例
+     */
+    public Request message(Message message) {
+        requireMutable();
+        if (batches.isEmpty()) {
+            batches.add(new ArrayList<>());
+        }
+        batches.get(batches.size() - 1).add(message);
+        return this;
+    }
+
+    /**
+     * 依次追加多条待发送的消息
+     *
+     * @param messages 消息
+     * @return 当前请求实例
+     */
+    public Request messages(Collection<Message> messages) {
+        requireMutable();
+        messages.forEach(this::message);
+        return this;
+    }
+
+    /**
+     * 在已追加的消息之后设置一个刷新点，刷新点把追加的消息分成多批，每批由jetty合并写出，批与批之间不合并；
+     * 各批按顺序立即提交，不等待前一批写出，jetty按提交顺序写出。最后一条消息之后总是刷新
+     *
+     * @return 当前请求实例
+     */
+    public Request flush() {
+        requireMutable();
+        if (!batches.isEmpty() && !batches.get(batches.size() - 1).isEmpty()) {
+            batches.add(new ArrayList<>());
+        }
+        return this;
+    }
+
     /**
      * 设置查询参数
      *
@@ -99,6 +378,7 @@ public class Request {
      * @return 当前请求实例
      */
     public Request query(Customizer<Map<String, Object>> customizer) {
+        requireMutable();
         var query = new HashMap<String, Object>();
         customizer.customize(query);
         this.query = query;
@@ -112,6 +392,7 @@ public class Request {
      * @return 当前请求实例
      */
     public Request query(Map<String, Object> query) {
+        requireMutable();
         this.query = query;
         return this;
     }
@@ -123,6 +404,7 @@ public class Request {
      * @return 当前请求实例
      */
     public Request headers(Customizer<Map<String, String>> customizer) {
+        requireMutable();
         var headers = new HashMap<String, String>();
         customizer.customize(headers);
         this.headers = headers;
@@ -136,10 +418,60 @@ public class Request {
      * @return 当前请求实例
      */
     public Request headers(Map<String, String> headers) {
+        requireMutable();
         this.headers = headers;
         return this;
     }
 
+    /**
+     * 设置在握手时协商 permessage-deflate 压缩，服务端不支持时按不压缩通信
+     * <p>
+     * 压缩的字节数与耗时通过引擎的 {@link MetricsListener} 报告，可据此按端点权衡带宽与CPU；
+     * 启用 {@link #keepAlive(boolean)} 时只复用压缩选项相同的连接
+     *
+     * @param compression 压缩选项，为null时不压缩
+     * @return 当前请求实例
+     */
+    public Request compression(Compression compression) {
+        requireMutable();
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * 设置二进制响应的文本字符集，文本消息按协议总是UTF-8
+     * <p>
+     * 关闭连接处理函数与 {@link Response#text()} 共用同一次解码结果；设置了字节数组到字符串的转换函数时，关闭连接处理函数使用转换函数
+     *
+     * @param charset 字符集
+     * @return 当前请求实例
+     */
+    public Request charset(Charset charset) {
+        requireMutable();
+        this.charset = Objects.requireNonNull(charset, "charset");
+        return this;
+    }
+
+    /**
+     * 为持久会话与多路复用会话的连接设置有界发送队列，限制尚未写出的消息数与字节数
+     * <p>
+     * 对端变慢时消息在队列中等待，超过上限时按溢出策略处理，发送线程不会因为对端变慢而无限堆积数据；
+     * 队列深度、丢弃与拒绝的次数见 {@link SendQueue}
+     *
+     * @param maxMessages 最多未写出的消息数
+     * @param maxBytes    最多未写出的负载字节数
+     * @param overflow    队列满时的处理方式
+     * @return 当前请求实例
+     */
+    public Request sendQueue(int maxMessages, long maxBytes, OverflowPolicy overflow) {
+        requireMutable();
+        if (maxMessages <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxMessages and maxBytes must be positive: " + maxMessages + ", " + maxBytes);
+        }
+        this.sendLimits = new SendLimits(maxMessages, maxBytes, Objects.requireNonNull(overflow, "overflow"));
+        return this;
+    }
+
     /**
      * 设置请求超时时间
      *
@@ -147,10 +479,131 @@ public class Request {
      * @return 当前请求实例
      */
     public Request timeout(int timeout) {
+        requireMutable();
         this.timeout = timeout > 0 ? timeout : 60;
         return this;
     }
 
+    /**
+     * 设置执行请求使用的引擎，未设置时使用 {@link WebSocketEngine#defaultEngine()}
+     *
+     * @param engine WebSocket客户端引擎
+     * @return 当前请求实例
+     */
+    public Request engine(WebSocketEngine engine) {
+        requireMutable();
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * 设置是否复用长连接，启用后从引擎的 {@link ConnectionPool} 租用相同地址与请求头的已打开连接，
+     * 交互完成后归还连接而不是关闭，适用于严格一问一答的协议
+     *
+     * @param keepAlive 是否复用长连接
+     * @return 当前请求实例
+     */
+    public Request keepAlive(boolean keepAlive) {
+        requireMutable();
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * 设置响应最多保留的消息数，超出后按环形缓冲区覆盖最早的消息，适用于长时间订阅的场景
+     *
+     * @param retain 最多保留的消息数，小于等于0表示保留全部消息
+     * @return 当前请求实例
+     */
+    public Request retain(int retain) {
+        requireMutable();
+        this.retain = Math.max(retain, 0);
+        return this;
+    }
+
+    /**
+     * 设置基于消息负载的完成条件，收到的每条消息以只读 {@link ByteBuffer} 视图交给条件判断，满足时完成交互
+     * <p>
+     * 与关闭连接处理函数不同，判断过程不把消息转换为文本，适用于高频的二进制消息；
+     * 与关闭连接处理函数同时设置时，任意一个满足即完成交互
+     *
+     * @param completeWhen 完成条件
+     * @return 当前请求实例
+     */
+    public Request completeWhen(Predicate<ByteBuffer> completeWhen) {
+        requireMutable();
+        this.completeWhen = completeWhen;
+        return this;
+    }
+
+    /**
+     * 设置基于解码结果的完成条件，每条消息从负载的只读视图解码一次后检查，不经过文本
+     *
+     * @param codec        编解码器
+     * @param completeWhen 完成条件
+     * @param <T>          对象类型
+     * @return 当前请求实例
+     */
+    public <T> Request completeWhen(Codec<? extends T> codec, Predicate<? super T> completeWhen) {
+        requireMutable();
+        Objects.requireNonNull(codec, "codec");
+        Objects.requireNonNull(completeWhen, "completeWhen");
+        return completeWhen(payload -> completeWhen.test(codec.decode(payload)));
+    }
+
+    /**
+     * 设置把收到的消息直接写入文件，不在内存中保存，见 {@link #saveTo(Path, SyncPolicy)}
+     *
+     * @param file 文件路径
+     * @return 当前请求实例
+     */
+    public Request saveTo(Path file) {
+        return saveTo(file, SyncPolicy.NONE);
+    }
+
+    /**
+     * 设置把收到的消息直接写入文件，每次执行时创建或清空文件，交互结束后关闭文件
+     * <p>
+     * 收到的每个数据帧在到达时写入文件，内存中最多只有一帧，引擎的最大消息长度只限制单帧；
+     * 第一条消息写完即完成交互，关闭连接处理函数与完成条件不再生效，响应不保存消息内容，写入的字节数见 {@link Response#written()}
+     *
+     * @param file 文件路径
+     * @param sync 刷写时机
+     * @return 当前请求实例
+     */
+    public Request saveTo(Path file, SyncPolicy sync) {
+        requireMutable();
+        Objects.requireNonNull(file, "file");
+        this.sink = () -> new FrameSink(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), sync, true);
+        return this;
+    }
+
+    /**
+     * 设置把收到的消息直接写入调用方的通道，见 {@link #sink(WritableByteChannel, SyncPolicy)}
+     *
+     * @param channel 目标通道
+     * @return 当前请求实例
+     */
+    public Request sink(WritableByteChannel channel) {
+        return sink(channel, SyncPolicy.NONE);
+    }
+
+    /**
+     * 设置把收到的消息直接写入调用方的通道，交互结束后不关闭通道
+     * <p>
+     * 与 {@link #saveTo(Path, SyncPolicy)} 相同，收到的每个数据帧在到达时写入通道；只有 {@link FileChannel} 支持刷写
+     *
+     * @param channel 目标通道
+     * @param sync    刷写时机
+     * @return 当前请求实例
+     */
+    public Request sink(WritableByteChannel channel, SyncPolicy sync) {
+        requireMutable();
+        Objects.requireNonNull(channel, "channel");
+        this.sink = () -> new FrameSink(channel, sync, false);
+        return this;
+    }
+
     /**
      * 执行WebSocket请求
      *
@@ -176,45 +629,442 @@ public class Request {
      * 执行WebSocket请求
      *
      * @param closeConnectHandler   关闭连接处理函数
-     * @param byteToStringConverter 字节数组到字符串的转换函数
+     * @param byteToStringConverter 字节数组到字符串的转换函数，为null时按 {@link #charset(Charset)} 解码
      * @return 响应对象
      * @throws Exception 执行过程中可能抛出的异常
      */
     public Response execute(Function<String, Boolean> closeConnectHandler, Function<byte[], String> byteToStringConverter) throws Exception {
-        var response = new Response(System.currentTimeMillis());
-        var client = new WebSocketClient(HttpClientProvider.get(new SimpleContainerScope(WebSocketPolicy.newClientPolicy())));
-        var socket = new ServiceSocket(client, response, closeConnectHandler, byteToStringConverter == null ? String::new : byteToStringConverter);
+        try {
+            return executeAsync(closeConnectHandler, byteToStringConverter).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * 异步执行WebSocket请求
+     *
+     * @return 响应的 Future
+     */
+    public CompletableFuture<Response> executeAsync() {
+        return executeAsync(null);
+    }
+
+    /**
+     * 异步执行WebSocket请求
+     *
+     * @param closeConnectHandler 关闭连接处理函数
+     * @return 响应的 Future
+     */
+    public CompletableFuture<Response> executeAsync(Function<String, Boolean> closeConnectHandler) {
+        return executeAsync(closeConnectHandler, null);
+    }
+
+    /**
+     * 异步执行WebSocket请求，不阻塞调用线程
+     * <p>
+     * 交互由jetty的连接回调与消息回调驱动，超时由引擎的共享定时器触发；
+     * 与 {@link #execute(Function, Function)} 一致，超时后返回已收到的响应并标记 {@link Response#timedOut()}，连接失败时 Future 异常完成
+     *
+     * @param closeConnectHandler   关闭连接处理函数
+     * @param byteToStringConverter 字节数组到字符串的转换函数，为null时按 {@link #charset(Charset)} 解码
+     * @return 响应的 Future
+     */
+    public CompletableFuture<Response> executeAsync(Function<String, Boolean> closeConnectHandler, Function<byte[], String> byteToStringConverter) {
+        var settings = settings();
+        return settings.executeAsync(settings.url, closeConnectHandler, byteToStringConverter);
+    }
+
+    /**
+     * 以当前请求为模板，对另一个服务地址异步执行交互，供 {@link ScatterGather} 并发地访问多个端点
+     *
+     * @param url                   WebSocket服务地址，查询参数与当前请求相同
+     * @param closeConnectHandler   关闭连接处理函数
+     * @param byteToStringConverter 字节数组到字符串的转换函数
+     * @return 响应的 Future
+     */
+    CompletableFuture<Response> executeAsync(String url, Function<String, Boolean> closeConnectHandler, Function<byte[], String> byteToStringConverter) {
+        if (frozen != null) {
+            return frozen.executeAsync(url, closeConnectHandler, byteToStringConverter);
+        }
+        var response = new Response(System.currentTimeMillis(), retain);
+        response.charset(charset);
+        response.timing().start = System.nanoTime();
+        var engine = engine();
+        var result = new CompletableFuture<Response>();
+        var timer = engine.scheduler().schedule(() -> expire(result, response), timeout, TimeUnit.SECONDS);
+        result.whenComplete((r, e) -> timer.cancel());
+        try {
+            var uri = uri(url);
+            var metrics = engine.metrics();
+            result.whenComplete((r, e) -> {
+                if (e == null) {
+                    metrics.onExchange(uri, System.nanoTime() - response.timing().start);
+                }
+            });
+            var sink = this.sink == null ? null : this.sink.call();
+            if (sink != null) {
+                // 正常完成时已在完成前刷写并关闭，这里处理超时与失败
+                result.whenComplete((r, e) -> closeQuietly(sink));
+            }
+            if (keepAlive) {
+                executePooled(engine, uri, response, sink, closeConnectHandler, byteToStringConverter, result);
+            } else {
+                executeDirect(engine, uri, response, sink, closeConnectHandler, byteToStringConverter, result);
+            }
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * 以消息流的方式订阅服务端推送的消息
+     * <p>
+     * 每个订阅者建立一条独立的连接，连接打开后发送请求体，之后收到的每条完整消息按订阅者的需求推送；
+     * 需求耗尽时暂停从连接读取，直到订阅者再次请求。服务端关闭连接时订阅完成，取消订阅时关闭连接。
+     * 消息流不受 {@link #timeout(int)} 限制，也不使用连接池
+     *
+     * @return 消息发布者
+     */
+    public Flow.Publisher<Message> stream() {
+        if (frozen != null) {
+            return frozen.stream();
+        }
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "subscriber");
+            var socket = new ServiceSocket(null, null, null);
+            socket.compression(compression);
+            var subscription = new MessageSubscription(subscriber, socket);
+            socket.listen(subscription::onMessage);
+            subscriber.onSubscribe(subscription);
+            socket.opened()
+                    .thenCompose(session -> send(socket))
+                    .thenCompose(v -> socket.completion())
+                    .whenComplete((v, e) -> subscription.complete(e == null ? null : unwrap(e)));
+            try {
+                engine().connect(socket, uri(), upgradeRequest());
+            } catch (Exception e) {
+                subscription.complete(e);
+            }
+        };
+    }
+
+    /**
+     * 以消息流的方式订阅服务端推送的消息，每条消息用编解码器解码后推送
+     * <p>
+     * 与 {@link #stream()} 相同，需求直接作用于连接的读取；解码失败时关闭连接并以解码异常结束订阅
+     *
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 对象发布者
+     */
+    public <T> Flow.Publisher<T> stream(Codec<? extends T> codec) {
+        Objects.requireNonNull(codec, "codec");
+        var messages = stream();
+        return subscriber -> messages.subscribe(new DecodingSubscriber<>(Objects.requireNonNull(subscriber, "subscriber"), codec));
+    }
+
+    /**
+     * 打开一个持久会话，使用默认的重连策略 {@link Reconnect#backoff()}
+     *
+     * @param consumer 消息消费者
+     * @return 已发起连接的持久会话
+     */
+    public PersistentSession subscribe(Consumer<Message> consumer) {
+        return subscribe(consumer, Reconnect.backoff());
+    }
+
+    /**
+     * 打开一个持久会话，连接异常关闭后按重连策略自动重连
+     * <p>
+     * 请求体与追加的消息作为订阅消息，在每次连接打开后重新发送；所有连接收到的消息交给同一个消费者，
+     * 消费者在jetty的读取线程上被调用，不能阻塞。会话不受 {@link #timeout(int)} 限制，也不使用连接池
+     *
+     * @param consumer  消息消费者
+     * @param reconnect 重连策略
+     * @return 已发起连接的持久会话
+     */
+    public PersistentSession subscribe(Consumer<Message> consumer, Reconnect reconnect) {
+        Objects.requireNonNull(consumer, "consumer");
+        Objects.requireNonNull(reconnect, "reconnect");
+        if (frozen != null) {
+            return frozen.subscribe(consumer, reconnect);
+        }
+        var engine = engine();
+        return new PersistentSession(engine, reconnect, consumer, socket -> {
+            socket.compression(compression);
+            sendQueue(socket);
+            return engine.connect(socket, uri(), upgradeRequest());
+        }, this::send).start();
+    }
+
+    /**
+     * 打开一个多路复用会话，多个并发的调用共用一条连接，应答按关联ID路由给对应的调用
+     *
+     * @param correlator 关联ID提取器
+     * @return 已打开的多路复用会话
+     * @throws Exception 连接失败时抛出的异常
+     */
+    public MultiplexedSession multiplex(Correlator correlator) throws Exception {
+        try {
+            return multiplexAsync(correlator).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * 异步打开一个多路复用会话，单次调用的默认超时时间为 {@link #timeout()}
+     * <p>
+     * 会话建立后请求体不会被发送，消息通过 {@link MultiplexedSession#call(String)} 发出；会话不使用连接池
+     *
+     * @param correlator 关联ID提取器
+     * @return 会话打开后完成的 Future，连接失败时异常完成
+     */
+    public CompletableFuture<MultiplexedSession> multiplexAsync(Correlator correlator) {
+        Objects.requireNonNull(correlator, "correlator");
+        if (frozen != null) {
+            return frozen.multiplexAsync(correlator);
+        }
+        var engine = engine();
+        var socket = new ServiceSocket(null, null, null);
+        socket.compression(compression);
+        sendQueue(socket);
+        var session = new MultiplexedSession(engine, socket, correlator, TimeUnit.SECONDS.toMillis(timeout));
+        var result = new CompletableFuture<MultiplexedSession>();
+        socket.opened().whenComplete((s, e) -> {
+            if (e == null) {
+                result.complete(session);
+            } else {
+                result.completeExceptionally(unwrap(e));
+            }
+        });
+        try {
+            engine.connect(socket, uri(), upgradeRequest());
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * 建立新连接执行交互，交互结束后关闭连接
+     */
+    private void executeDirect(WebSocketEngine engine, URI uri, Response response, FrameSink sink, Function<String, Boolean> closeConnectHandler,
+                               Function<byte[], String> byteToStringConverter, CompletableFuture<Response> result) throws Exception {
+        var socket = new ServiceSocket(response, closeConnectHandler, byteToStringConverter).completeWhen(completeWhen);
+        socket.sink(sink);
+        socket.compression(compression);
+        socket.opened()
+                .thenCompose(session -> send(socket, response))
+                .thenCompose(v -> socket.completion())
+                .thenRun(() -> finish(sink))
+                .whenComplete((v, e) -> complete(result, response, e));
+        // 无论完成、超时还是失败，都关闭连接；响应在完成后不再被之后的回调修改
+        var connect = engine.connect(socket, uri, upgradeRequest(), response.timing());
+        result.whenComplete((r, e) -> {
+            socket.end();
+            if (!socket.opened().isDone()) {
+                connect.cancel(true);
+            }
+            socket.close();
+        });
+    }
+
+    /**
+     * 在连接池租用的连接上执行交互，交互正常完成后归还连接
+     */
+    private void executePooled(WebSocketEngine engine, URI uri, Response response, FrameSink sink, Function<String, Boolean> closeConnectHandler,
+                               Function<byte[], String> byteToStringConverter, CompletableFuture<Response> result) throws Exception {
+        engine.pool().acquire(uri, headers, compression, timeout, TimeUnit.SECONDS).whenComplete((lease, failure) -> {
+            if (failure != null) {
+                complete(result, response, failure);
+                return;
+            }
+            if (result.isDone()) {
+                lease.release(true);
+                return;
+            }
+            var socket = lease.socket();
+            socket.sink(sink);
+            var completion = socket.begin(response, closeConnectHandler, byteToStringConverter, completeWhen);
+            // 超时或失败时连接状态未知，不再复用
+            result.whenComplete((r, e) -> {
+                socket.end();
+                lease.release(completion.isDone() && !completion.isCompletedExceptionally());
+            });
+            send(socket, response).thenCompose(v -> completion).thenRun(() -> finish(sink)).whenComplete((v, e) -> complete(result, response, e));
+        });
+    }
+
+    private static void complete(CompletableFuture<Response> result, Response response, Throwable failure) {
+        synchronized (response) {
+            if (failure == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(unwrap(failure));
+            }
+        }
+    }
+
+    /**
+     * 超时后以已收到的响应完成交互，并把响应标记为超时；与 {@link #complete(CompletableFuture, Response, Throwable)} 互斥，
+     * 交互恰好在超时时完成时不会被误标记
+     */
+    private static void expire(CompletableFuture<Response> result, Response response) {
+        synchronized (response) {
+            if (!result.isDone()) {
+                response.expire();
+                result.complete(response);
+            }
+        }
+    }
+
+    /**
+     * 交互完成，刷写并关闭落盘目标，失败时交互异常完成
+     */
+    private static void finish(FrameSink sink) {
+        if (sink == null) {
+            return;
+        }
+        try {
+            sink.finish();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void closeQuietly(FrameSink sink) {
+        try {
+            sink.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * 发送请求体
+     *
+     * @param socket 已打开的连接
+     * @return 发送完成的 Future
+     */
+    private CompletableFuture<Void> send(ServiceSocket socket) {
+        CompletableFuture<Void> sent = CompletableFuture.completedFuture(null);
+        if (upload != null) {
+            // 分片消息结束前不能写出其它数据消息，追加的消息在上传完成后再提交
+            return ChunkedUpload.send(socket, upload, chunkSize, engine()).thenCompose(v -> sendBatches(socket));
+        } else if (encoded != null) {
+            sent = encoded.send(socket);
+        } else if (buffer != null && buffer.hasRemaining()) {
+            sent = socket.sendMessageAsync(buffer);
+        } else if (bytes != null && bytes.length > 0) {
+            sent = socket.sendMessageAsync(bytes);
+        } else if (body != null) {
+            sent = socket.sendMessageAsync(body);
+        }
+        return batches.isEmpty() ? sent : CompletableFuture.allOf(sent, sendBatches(socket));
+    }
+
+    /**
+     * 发送追加的消息，jetty按提交顺序写出，各批消息无需等待前一批完成即可提交
+     *
+     * @param socket 已打开的连接
+     * @return 全部消息写出后完成的 Future
+     */
+    private CompletableFuture<Void> sendBatches(ServiceSocket socket) {
+        var futures = new CompletableFuture<?>[batches.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = socket.sendBatch(batches.get(i));
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 发送请求体，发送完成后记录时间
+     *
+     * @param socket   已打开的连接
+     * @param response 响应对象
+     * @return 发送完成的 Future
+     */
+    private CompletableFuture<Void> send(ServiceSocket socket, Response response) {
+        return send(socket).thenRun(() -> response.timing().sent = System.nanoTime());
+    }
+
+    private void sendQueue(ServiceSocket socket) {
+        var sendLimits = this.sendLimits;
+        if (sendLimits != null) {
+            socket.sendQueue(sendLimits.maxMessages(), sendLimits.maxBytes(), sendLimits.overflow());
+        }
+    }
+
+    /**
+     * 构建握手请求
+     *
+     * @return 握手请求
+     */
+    private ClientUpgradeRequest upgradeRequest() {
         var request = new ClientUpgradeRequest();
+        if (template != null) {
+            // jetty在连接时修改握手请求，因此每次新建，请求头与扩展直接使用冻结时准备好的结果
+            request.setHeaders(template.headers());
+            request.setExtensions(template.extensions());
+            return request;
+        }
         if (headers != null && !headers.isEmpty()) {
             headers.forEach(request::setHeader);
         }
-        url = url + getQueryString();
-        client.start();
-        client.connect(socket, new URI(url), request);
-        socket.awaitOpen(timeout, TimeUnit.SECONDS);
+        if (compression != null) {
+            request.addExtensions(compression.offer());
+        }
+        return request;
+    }
 
-        if (bytes != null && bytes.length > 0) {
-            socket.sendMessage(bytes);
-        } else if (body != null) {
-            socket.sendMessage(body);
+    /**
+     * 构建包含查询参数的服务地址，不修改 {@link #url()}
+     *
+     * @return 服务地址
+     * @throws URISyntaxException 如果地址格式不正确
+     */
+    URI uri() throws URISyntaxException {
+        var settings = settings();
+        return settings.uri(settings.url);
+    }
+
+    /**
+     * 构建指定服务地址加上查询参数的地址，已冻结的请求直接复用预先解析的地址与编码好的查询字符串
+     *
+     * @param url 服务地址
+     * @return 服务地址
+     * @throws URISyntaxException 如果地址格式不正确
+     */
+    private URI uri(String url) throws URISyntaxException {
+        if (template != null) {
+            return url.equals(this.url) ? template.uri() : new URI(url + template.queryString());
         }
-        socket.awaitClose(timeout, TimeUnit.SECONDS);
-        return response;
+        return new URI(url + getQueryString());
     }
 
     /**
-     * 构建查询字符串
+     * 构建查询字符串，参数名与参数值按UTF-8进行URL编码
      *
      * @return 查询字符串
      */
     private String getQueryString() {
         var queryString = new StringJoiner("&");
         if (query != null && !query.isEmpty()) {
-            query.forEach((key, value) -> queryString.add(key + "=" + value));
+            query.forEach((key, value) -> queryString.add(encode(key) + "=" + encode(value)));
         }
         return queryString.length() > 0 ? "?" + queryString : queryString.toString();
     }
 
+    private static String encode(Object value) {
+        return URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8);
+    }
+
 
     /**
      * 获取请求体文本内容
@@ -222,6 +1072,7 @@ public class Request {
      * @return 请求体文本内容
      */
     public String body() {
+        var body = settings().body;
         return body == null ? "" : body;
     }
 
@@ -231,15 +1082,26 @@ public class Request {
      * @return 请求体字节内容
      */
     public byte[] bytes() {
+        var bytes = settings().bytes;
         return bytes == null ? new byte[]{} : bytes;
     }
 
+    /**
+     * 获取二进制请求体缓冲区
+     *
+     * @return 请求体缓冲区，未设置时返回null
+     */
+    public ByteBuffer buffer() {
+        return settings().buffer;
+    }
+
     /**
      * 获取查询参数字符串表示
      *
      * @return 查询参数字符串
      */
     public String query() {
+        var query = settings().query;
         return query == null ? "" : query.toString();
     }
 
@@ -249,6 +1111,7 @@ public class Request {
      * @return 请求头映射
      */
     public Map<String, String> headers() {
+        var headers = settings().headers;
         return headers == null ? new HashMap<>() : headers;
     }
 
@@ -258,7 +1121,53 @@ public class Request {
      * @return WebSocket服务地址
      */
     public String url() {
-        return url;
+        return settings().url;
+    }
+
+    /**
+     * 获取执行请求使用的引擎
+     *
+     * @return WebSocket客户端引擎
+     */
+    public WebSocketEngine engine() {
+        var engine = settings().engine;
+        return engine == null ? WebSocketEngine.defaultEngine() : engine;
+    }
+
+    /**
+     * 获取是否复用长连接
+     *
+     * @return 是否复用长连接
+     */
+    public boolean keepAlive() {
+        return settings().keepAlive;
+    }
+
+    /**
+     * 获取响应最多保留的消息数
+     *
+     * @return 最多保留的消息数，0表示保留全部消息
+     */
+    public int retain() {
+        return settings().retain;
+    }
+
+    /**
+     * 获取压缩选项
+     *
+     * @return 压缩选项，未启用压缩时返回null
+     */
+    public Compression compression() {
+        return settings().compression;
+    }
+
+    /**
+     * 获取二进制响应的文本字符集
+     *
+     * @return 字符集，默认为UTF-8
+     */
+    public Charset charset() {
+        return settings().charset;
     }
 
     /**
@@ -267,7 +1176,28 @@ public class Request {
      * @return 超时时间（秒）
      */
     public int timeout() {
-        return timeout;
+        return settings().timeout;
+    }
+
+    /**
+     * 冻结时预先计算的服务地址、查询字符串、握手请求头与扩展
+     */
+    private record Template(URI uri, String queryString, Map<String, List<String>> headers, List<ExtensionConfig> extensions) {
+    }
+
+    /**
+     * 发送队列的上限与溢出策略
+     */
+    private record SendLimits(int maxMessages, long maxBytes, OverflowPolicy overflow) {
     }
 
+    /**
+     * 类型化的请求体与其编解码器
+     */
+    private record Encoded<T>(T value, Codec<? super T> codec) {
+
+        CompletableFuture<Void> send(ServiceSocket socket) {
+            return socket.sendMessageAsync(value, codec);
+        }
+    }
 }
@@ -28,9 +28,15 @@
 
 package io.github.xiaomisum.simplewebsocket;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
@@ -41,7 +47,7 @@ import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
  * @author xiaomi
  * Created at 2025/10/26 21:25
  */
-public class Response {
+public class Response implements Iterable<Message> {
 
     /**
      * 请求开始时间戳
@@ -54,8 +60,41 @@ public class Response {
     Long endTime;
     int status = 1000;
 
+    /**
+     * 直接设置的响应字节数据，为null时取自 {@link #message}
+     */
     byte[] bytes;
 
+    /**
+     * 最后收到的一条完整消息，字节数据在第一次获取时才从消息取得，文本消息此时才编码
+     */
+    private Message message;
+
+    /**
+     * 落盘模式下已写入目标的字节数
+     */
+    private volatile long written;
+
+    /**
+     * 交互是否因超时结束
+     */
+    private volatile boolean timedOut;
+
+    /**
+     * 按接收顺序保存的消息
+     */
+    private final MessageBuffer messages;
+
+    /**
+     * 二进制消息的文本字符集
+     */
+    private volatile Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * 各阶段的纳秒时间点
+     */
+    private final Timing timing = new Timing();
+
 
     /**
      * 构造一个新的响应对象
@@ -63,7 +102,77 @@ public class Response {
      * @param startTime 请求开始时间戳
      */
     public Response(long startTime) {
+        this(startTime, 0);
+    }
+
+    /**
+     * 构造一个新的响应对象
+     *
+     * @param startTime 请求开始时间戳
+     * @param retain    最多保留的消息数，小于等于0表示保留全部消息
+     */
+    public Response(long startTime, int retain) {
         this.startTime = startTime;
+        this.messages = new MessageBuffer(retain);
+    }
+
+    /**
+     * 记录一条收到的完整消息，并更新结束时间与最后一条消息数据
+     *
+     * @param message 消息
+     */
+    void add(Message message) {
+        messages.add(message);
+        this.message = message;
+        bytes = null;
+        endTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一条已写入落盘目标的消息，消息内容不保存在响应中
+     *
+     * @param written 累计写入的字节数
+     */
+    void skip(long written) {
+        messages.skip();
+        this.written = written;
+        endTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 标记交互因超时结束，由请求的超时任务在完成响应前调用
+     */
+    void expire() {
+        this.timedOut = true;
+    }
+
+    /**
+     * 获取交互是否因超时结束
+     * <p>
+     * 超时的响应可能已经收到部分消息，服务端也没有关闭连接，此时 {@link #status()} 仍是默认值，不能据此判断交互是否成功
+     *
+     * @return 是否超时
+     */
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 设置二进制消息的文本字符集
+     *
+     * @param charset 字符集
+     */
+    void charset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 获取二进制消息的文本字符集，文本消息总是按UTF-8解码
+     *
+     * @return 字符集，默认为UTF-8
+     */
+    public Charset charset() {
+        return charset;
     }
 
     /**
@@ -75,6 +184,15 @@ public class Response {
         return startTime;
     }
 
+    /**
+     * 获取交互各阶段的纳秒时间点，用于区分网络、握手与服务端处理的耗时
+     *
+     * @return 阶段时间
+     */
+    public Timing timing() {
+        return timing;
+    }
+
     /**
      * 获取请求结束时间戳
      *
@@ -94,21 +212,157 @@ public class Response {
     }
 
     /**
-     * 获取响应字节数据
+     * 获取按接收顺序保留的消息
+     * <p>
+     * 返回的是当前时刻的副本；设置了保留条数时只包含最近的消息
+     *
+     * @return 消息列表
+     */
+    public List<Message> messages() {
+        return List.copyOf(messages.snapshot());
+    }
+
+    /**
+     * 获取按接收顺序保留的消息流
+     *
+     * @return 消息流
+     */
+    public Stream<Message> stream() {
+        return messages.snapshot().stream();
+    }
+
+    /**
+     * 按接收顺序遍历保留的消息
+     *
+     * @return 消息迭代器
+     */
+    @Override
+    public Iterator<Message> iterator() {
+        return messages().iterator();
+    }
+
+    /**
+     * 获取累计收到的消息数，包含环形缓冲区中已被覆盖的消息
+     *
+     * @return 消息数
+     */
+    public long received() {
+        return messages.total();
+    }
+
+    /**
+     * 获取落盘模式下写入目标的字节数
+     *
+     * @return 字节数，未启用落盘时为0
+     */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * 获取最后收到的一条消息
+     *
+     * @return 最后一条消息，没有消息时返回null
+     */
+    public Message last() {
+        return messages.last();
+    }
+
+    /**
+     * 获取响应字节数据，即最后收到的一条完整消息
      *
      * @return 响应字节数据
      */
     public byte[] bytes() {
-        return bytes;
+        var current = current();
+        return current == null ? bytes : current.bytes();
     }
 
     /**
-     * 获取响应体的文本表示
+     * 获取响应字节数据的只读视图，不复制数据
      *
-     * @return 响应体文本
+     * @return 响应字节数据的只读 {@link ByteBuffer}，没有响应数据时返回null
+     */
+    public ByteBuffer buffer() {
+        var current = current();
+        if (current != null) {
+            return current.buffer();
+        }
+        return bytes == null ? null : ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * 获取响应体的文本表示，即最后收到的一条消息的文本
+     * <p>
+     * 文本消息按UTF-8解码，二进制消息按 {@link #charset()} 解码；只在第一次获取时解码，之后返回缓存的文本
+     *
+     * @return 响应体文本，没有响应数据时返回null
      */
     public String text() {
-        return text(byteToStringConverter -> new String(bytes));
+        var last = current();
+        if (last == null) {
+            return bytes == null ? null : new String(bytes, charset);
+        }
+        return last.text(last.isText() ? StandardCharsets.UTF_8 : charset);
+    }
+
+    /**
+     * 获取响应体按指定字符集解码的文本，以相同字符集重复获取时返回缓存的文本
+     *
+     * @param charset 字符集
+     * @return 响应体文本，没有响应数据时返回null
+     */
+    public String text(Charset charset) {
+        var last = current();
+        if (last == null) {
+            return bytes == null ? null : new String(bytes, charset);
+        }
+        return last.text(charset);
+    }
+
+    /**
+     * 获取响应体的字符序列，适用于只需要扫描文本的场景，见 {@link Message#chars()}
+     *
+     * @return 响应体字符序列，没有响应数据时返回null
+     */
+    public CharSequence chars() {
+        var last = current();
+        if (last == null) {
+            return text();
+        }
+        return last.isText() || StandardCharsets.UTF_8.equals(charset) ? last.chars() : last.text(charset);
+    }
+
+    /**
+     * 获取响应字节数据所属的消息，用于复用消息缓存的文本
+     *
+     * @return 最后一条消息，响应字节数据不来自消息时返回null
+     */
+    private Message current() {
+        return bytes == null ? message : null;
+    }
+
+    /**
+     * 使用编解码器从响应字节数据解码出对象，即最后收到的一条消息，不经过文本
+     *
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 对象，没有响应数据时返回null
+     */
+    public <T> T decode(Codec<? extends T> codec) {
+        var buffer = buffer();
+        return buffer == null ? null : codec.decode(buffer);
+    }
+
+    /**
+     * 使用编解码器按接收顺序解码保留的消息
+     *
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 对象流
+     */
+    public <T> Stream<T> stream(Codec<? extends T> codec) {
+        return stream().map(message -> message.decode(codec));
     }
 
     /**
@@ -118,23 +372,23 @@ public class Response {
      * @return 响应体文本
      */
     public String text(Function<byte[], String> byteToStringConverter) {
-        return byteToStringConverter.apply(bytes);
+        return byteToStringConverter.apply(bytes());
     }
 
     /**
      * 将响应体保存到指定路径的文件中
+     * <p>
+     * 响应体需要先完整保存在内存中；较大的响应可以使用 {@link Request#saveTo(Path)} 在接收时直接写入文件
      *
      * @param path 文件路径
      * @return 文件路径
      */
     public String save(String path) {
-        return text(byteToStringConverter -> {
-            try {
-                return Files.write(Path.of(path), bytes, CREATE, TRUNCATE_EXISTING).toString();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+        try {
+            return Files.write(Path.of(path), bytes(), CREATE, TRUNCATE_EXISTING).toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
 }
@@ -0,0 +1,226 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 分散-汇聚执行器，以一个 {@link Request} 为模板，对多个服务端点并发执行同一次交互并汇总结果
+ * <p>
+ * 交互全部是异步的，不为每个端点创建线程；同时进行的交互数不超过 {@link #concurrency(int)}，一个交互结束后再发起下一个。
+ * 设置 {@link #quorum(int)} 后，成功的交互数达到法定数时立即结束，取消仍在进行的交互，尚未发起的端点不再发起。
+ * 模板请求的引擎、请求体、查询参数、请求头与超时对所有端点生效，执行期间不应再修改
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 21:20
+ */
+public class ScatterGather {
+
+    private final Request template;
+    private final List<String> endpoints = new ArrayList<>();
+    private int concurrency = 32;
+    private int quorum = 0;
+
+    /**
+     * 构造一个分散-汇聚执行器
+     *
+     * @param template 模板请求，{@link Request#url()} 不参与执行
+     */
+    public ScatterGather(Request template) {
+        this.template = template;
+    }
+
+    /**
+     * 添加要访问的服务端点
+     *
+     * @param urls WebSocket服务地址
+     * @return 当前执行器实例
+     */
+    public ScatterGather endpoints(Collection<String> urls) {
+        endpoints.addAll(urls);
+        return this;
+    }
+
+    /**
+     * 设置同时进行的交互数上限
+     *
+     * @param concurrency 交互数上限，默认为32
+     * @return 当前执行器实例
+     */
+    public ScatterGather concurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 设置法定成功数，成功的交互数达到该值时结束执行并取消其余交互
+     *
+     * @param quorum 法定成功数，0表示等待全部端点
+     * @return 当前执行器实例
+     */
+    public ScatterGather quorum(int quorum) {
+        if (quorum < 0) {
+            throw new IllegalArgumentException("quorum must not be negative: " + quorum);
+        }
+        this.quorum = quorum;
+        return this;
+    }
+
+    /**
+     * 执行并阻塞到全部端点结束或达到法定成功数
+     *
+     * @return 汇总结果
+     * @throws InterruptedException 如果等待过程中线程被中断
+     */
+    public ScatterResult run() throws InterruptedException {
+        try {
+            return runAsync().get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 异步执行
+     *
+     * @return 全部端点结束或达到法定成功数时完成的 Future
+     */
+    public CompletableFuture<ScatterResult> runAsync() {
+        return new Execution(List.copyOf(endpoints)).start();
+    }
+
+    /**
+     * 一次执行的状态，各端点的交互与结果按端点下标保存
+     */
+    private final class Execution {
+
+        private final List<String> urls;
+        private final long startedAt = System.nanoTime();
+        private final AtomicReferenceArray<CompletableFuture<Response>> exchanges;
+        private final AtomicReferenceArray<ScatterResult.Exchange> results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final CompletableFuture<ScatterResult> result = new CompletableFuture<>();
+        private final int target;
+
+        private Execution(List<String> urls) {
+            this.urls = urls;
+            this.exchanges = new AtomicReferenceArray<>(urls.size());
+            this.results = new AtomicReferenceArray<>(urls.size());
+            this.target = quorum == 0 ? urls.size() : Math.min(quorum, urls.size());
+        }
+
+        CompletableFuture<ScatterResult> start() {
+            if (urls.isEmpty()) {
+                finish();
+                return result;
+            }
+            for (int i = 0; i < Math.min(concurrency, urls.size()); i++) {
+                launch();
+            }
+            return result;
+        }
+
+        /**
+         * 发起下一个端点的交互，没有剩余端点或已经结束时不做任何事
+         */
+        private void launch() {
+            if (result.isDone()) {
+                return;
+            }
+            var index = next.getAndIncrement();
+            if (index >= urls.size()) {
+                return;
+            }
+            var begin = System.nanoTime();
+            CompletableFuture<Response> exchange;
+            try {
+                exchange = template.executeAsync(urls.get(index), null, null);
+            } catch (RuntimeException e) {
+                exchange = CompletableFuture.failedFuture(e);
+            }
+            exchanges.set(index, exchange);
+            if (result.isDone()) {
+                exchange.cancel(true);
+            }
+            exchange.whenComplete((response, failure) -> {
+                var cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                var outcome = new ScatterResult.Exchange(urls.get(index), response, cause, System.nanoTime() - begin);
+                results.set(index, outcome);
+                var done = finished.incrementAndGet() == urls.size();
+                if (outcome.succeeded() && succeeded.incrementAndGet() == target && quorum > 0 || done) {
+                    finish();
+                } else {
+                    launch();
+                }
+            });
+        }
+
+        /**
+         * 汇总结果并取消仍在进行的交互，只有第一次调用生效
+         */
+        private void finish() {
+            var exchanges = new ArrayList<ScatterResult.Exchange>();
+            var cancelled = new ArrayList<String>();
+            // 先占住下标，之后不会再发起新的交互
+            next.set(urls.size());
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                for (int i = 0; i < urls.size(); i++) {
+                    var outcome = results.get(i);
+                    if (outcome != null) {
+                        exchanges.add(outcome);
+                    } else {
+                        cancelled.add(urls.get(i));
+                    }
+                }
+                result.complete(new ScatterResult(System.nanoTime() - startedAt, exchanges, cancelled, quorum > 0 && succeeded.get() >= target));
+            }
+            for (int i = 0; i < urls.size(); i++) {
+                var exchange = this.exchanges.get(i);
+                if (exchange != null && !exchange.isDone()) {
+                    exchange.cancel(true);
+                }
+            }
+        }
+    }
+}
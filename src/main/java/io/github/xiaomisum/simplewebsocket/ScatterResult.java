@@ -0,0 +1,236 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link ScatterGather} 的汇总结果，包含每个端点的响应或失败原因、最快与最慢的端点以及按关闭状态码分组的端点
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 21:32
+ */
+public class ScatterResult {
+
+    private final Duration elapsed;
+    private final List<Exchange> exchanges;
+    private final List<String> cancelled;
+    private final boolean quorumReached;
+    private final Histogram latency = new Histogram();
+
+    ScatterResult(long elapsedNanos, List<Exchange> exchanges, List<String> cancelled, boolean quorumReached) {
+        this.elapsed = Duration.ofNanos(elapsedNanos);
+        this.exchanges = List.copyOf(exchanges);
+        this.cancelled = List.copyOf(cancelled);
+        this.quorumReached = quorumReached;
+        for (var exchange : exchanges) {
+            latency.record(exchange.latencyNanos());
+        }
+    }
+
+    /**
+     * 获取从开始执行到结束的时长
+     *
+     * @return 时长
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * 获取已结束的交互，按端点的添加顺序排列
+     *
+     * @return 交互结果
+     */
+    public List<Exchange> exchanges() {
+        return exchanges;
+    }
+
+    /**
+     * 获取端点到响应的映射，只包含没有抛出异常的交互
+     *
+     * @return 端点到响应的映射
+     */
+    public Map<String, Response> responses() {
+        var responses = new TreeMap<String, Response>();
+        for (var exchange : exchanges) {
+            if (exchange.failure() == null) {
+                responses.put(exchange.url(), exchange.response());
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * 获取端点到失败原因的映射，例如连接失败
+     *
+     * @return 端点到异常的映射
+     */
+    public Map<String, Throwable> failures() {
+        var failures = new TreeMap<String, Throwable>();
+        for (var exchange : exchanges) {
+            if (exchange.failure() != null) {
+                failures.put(exchange.url(), exchange.failure());
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * 获取服务端以非正常状态码关闭连接的端点，按状态码分组
+     *
+     * @return 状态码到端点列表的映射
+     */
+    public Map<Integer, List<String>> closeStatuses() {
+        var statuses = new TreeMap<Integer, List<String>>();
+        for (var exchange : exchanges) {
+            var response = exchange.response();
+            if (response != null && response.status() != 1000) {
+                statuses.computeIfAbsent(response.status(), k -> new ArrayList<>()).add(exchange.url());
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * 获取在模板请求的超时时间内没有完成的端点，包含超时前已收到部分消息的端点
+     *
+     * @return 端点列表
+     */
+    public List<String> timedOut() {
+        return exchanges.stream().filter(Exchange::timedOut).map(Exchange::url).toList();
+    }
+
+    /**
+     * 获取因达到法定成功数而被取消或没有发起的端点
+     *
+     * @return 端点列表
+     */
+    public List<String> cancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 获取成功的交互数
+     *
+     * @return 成功的交互数
+     */
+    public long succeeded() {
+        return exchanges.stream().filter(Exchange::succeeded).count();
+    }
+
+    /**
+     * 检查是否因达到法定成功数而提前结束
+     *
+     * @return 达到法定成功数返回true，未设置法定数或未达到时返回false
+     */
+    public boolean quorumReached() {
+        return quorumReached;
+    }
+
+    /**
+     * 获取最快的成功交互
+     *
+     * @return 最快的交互，没有成功的交互时返回null
+     */
+    public Exchange fastest() {
+        return exchanges.stream().filter(Exchange::succeeded).min(Comparator.comparingLong(Exchange::latencyNanos)).orElse(null);
+    }
+
+    /**
+     * 获取最慢的成功交互
+     *
+     * @return 最慢的交互，没有成功的交互时返回null
+     */
+    public Exchange slowest() {
+        return exchanges.stream().filter(Exchange::succeeded).max(Comparator.comparingLong(Exchange::latencyNanos)).orElse(null);
+    }
+
+    /**
+     * 获取所有已结束交互的耗时分布（纳秒）
+     *
+     * @return 耗时直方图
+     */
+    public Histogram latency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        var fastest = fastest();
+        var slowest = slowest();
+        return String.format("""
+                        elapsed     %.1f ms
+                        endpoints   %d finished, %d cancelled
+                        succeeded   %d
+                        timed out   %d
+                        closed      %s
+                        failures    %d
+                        fastest     %s
+                        slowest     %s""",
+                elapsed.toNanos() / 1e6, exchanges.size(), cancelled.size(), succeeded(), timedOut().size(), closeStatuses(), failures().size(),
+                fastest == null ? "-" : String.format("%s %.3f ms", fastest.url(), fastest.latencyNanos() / 1e6),
+                slowest == null ? "-" : String.format("%s %.3f ms", slowest.url(), slowest.latencyNanos() / 1e6));
+    }
+
+    /**
+     * 单个端点的交互结果
+     *
+     * @param url          服务地址
+     * @param response     响应，交互失败时为null
+     * @param failure      失败原因，交互没有抛出异常时为null
+     * @param latencyNanos 从发起到结束的耗时（纳秒）
+     */
+    public record Exchange(String url, Response response, Throwable failure, long latencyNanos) {
+
+        /**
+         * 判断交互是否成功：没有异常、在超时前完成且服务端没有以非正常状态码关闭；
+         * 超时的交互即使已收到消息也不算成功，不计入法定成功数与最快、最慢的排名
+         *
+         * @return 是否成功
+         */
+        public boolean succeeded() {
+            return failure == null && !response.timedOut() && response.status() == 1000;
+        }
+
+        /**
+         * 判断交互是否因超时结束，见 {@link Response#timedOut()}
+         *
+         * @return 是否超时
+         */
+        public boolean timedOut() {
+            return failure == null && response.timedOut();
+        }
+    }
+}
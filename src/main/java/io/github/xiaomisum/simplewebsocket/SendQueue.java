@@ -0,0 +1,344 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单条连接的有界发送队列，限制尚未写出的消息数与字节数
+ * <p>
+ * 同一时刻只有一批消息交给jetty写出，这一批写完后，期间入队的消息再合并为下一批（见 {@link ServiceSocket#sendBatch(List)}）；
+ * 对端变慢时消息在队列中等待，超过上限时按 {@link OverflowPolicy} 处理，发送线程不会被写出阻塞，内存占用也有上限。
+ * 计数包括排队中与正在写出的消息；丢弃或拒绝的消息的 Future 分别以 {@link CancellationException} 与
+ * {@link RejectedExecutionException} 失败；{@link OverflowPolicy#BLOCK} 的等待基于 {@link ReentrantLock}，虚拟线程等待时不会占住载体线程
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 21:05
+ */
+public final class SendQueue {
+
+    private final ServiceSocket socket;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final OverflowPolicy overflow;
+    private final ArrayDeque<Entry> waiting = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition space = lock.newCondition();
+    private int depth;
+    private long bytes;
+    private int peakDepth;
+    private long dropped;
+    private long rejected;
+    private boolean flushing;
+    private boolean closed;
+
+    /**
+     * 构造一个发送队列，连接结束时队列关闭
+     *
+     * @param socket      服务套接字
+     * @param maxMessages 最多未写出的消息数
+     * @param maxBytes    最多未写出的负载字节数
+     * @param overflow    队列满时的处理方式
+     */
+    SendQueue(ServiceSocket socket, int maxMessages, long maxBytes, OverflowPolicy overflow) {
+        if (maxMessages <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxMessages and maxBytes must be positive: " + maxMessages + ", " + maxBytes);
+        }
+        this.socket = socket;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.overflow = overflow;
+        socket.completion().whenComplete((v, e) -> close());
+    }
+
+    /**
+     * 把消息放入队列，队列为空闲时立即开始写出
+     *
+     * @param message 消息
+     * @return 消息写出后完成的 Future；被丢弃、被拒绝或连接关闭时异常完成
+     */
+    public CompletableFuture<Void> offer(Message message) {
+        var future = new CompletableFuture<Void>();
+        var size = message.length();
+        List<Entry> evicted = null;
+        List<Entry> batch = null;
+        lock.lock();
+        try {
+            if (size > maxBytes) {
+                rejected++;
+                future.completeExceptionally(new RejectedExecutionException("message of " + size + " bytes exceeds send queue limit of " + maxBytes + " bytes"));
+                return future;
+            }
+            while (!closed && !fits(size)) {
+                if (overflow == OverflowPolicy.BLOCK) {
+                    try {
+                        space.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        future.completeExceptionally(e);
+                        return future;
+                    }
+                    continue;
+                }
+                socket.metrics().onOverflow(socket.uri(), overflow);
+                if (overflow == OverflowPolicy.DROP_OLDEST && !waiting.isEmpty()) {
+                    var oldest = waiting.pollFirst();
+                    depth--;
+                    bytes -= oldest.message.length();
+                    dropped++;
+                    if (evicted == null) {
+                        evicted = new ArrayList<>();
+                    }
+                    evicted.add(oldest);
+                    continue;
+                }
+                if (overflow == OverflowPolicy.FAIL) {
+                    rejected++;
+                    future.completeExceptionally(new RejectedExecutionException("send queue full: " + depth + " messages, " + bytes + " bytes"));
+                } else {
+                    dropped++;
+                    future.completeExceptionally(new CancellationException("dropped by full send queue"));
+                }
+                break;
+            }
+            if (closed) {
+                future.completeExceptionally(new IOException("connection closed"));
+            }
+            if (!future.isDone()) {
+                waiting.addLast(new Entry(message, future));
+                depth++;
+                bytes += size;
+                peakDepth = Math.max(peakDepth, depth);
+                if (!flushing) {
+                    flushing = true;
+                    batch = take();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (evicted != null) {
+            evicted.forEach(entry -> entry.future.completeExceptionally(new CancellationException("dropped by full send queue")));
+        }
+        if (batch != null) {
+            flush(batch);
+        }
+        return future;
+    }
+
+    private boolean fits(int size) {
+        return depth < maxMessages && bytes + size <= maxBytes;
+    }
+
+    /**
+     * 取出全部排队中的消息作为下一批，调用时必须持有 {@link #lock}
+     */
+    private List<Entry> take() {
+        var batch = new ArrayList<>(waiting);
+        waiting.clear();
+        return batch;
+    }
+
+    /**
+     * 逐批写出直到队列为空；写出同步完成时在本线程循环取下一批，异步完成时由完成回调接着写出，调用栈深度不随批数增长
+     */
+    private void flush(List<Entry> batch) {
+        while (batch != null) {
+            var pending = batch;
+            // 0：本线程仍在等待结果，1：已同步完成，下一批由本线程写出，2：本线程已返回，下一批由回调写出
+            var state = new AtomicInteger();
+            var next = new AtomicReference<List<Entry>>();
+            write(pending).whenComplete((v, e) -> {
+                var following = written(pending, e);
+                if (state.compareAndSet(0, 1)) {
+                    next.set(following);
+                } else if (following != null) {
+                    flush(following);
+                }
+            });
+            if (state.compareAndSet(0, 2)) {
+                return;
+            }
+            batch = next.get();
+        }
+    }
+
+    private CompletableFuture<Void> write(List<Entry> batch) {
+        var messages = new ArrayList<Message>(batch.size());
+        for (var entry : batch) {
+            messages.add(entry.message);
+        }
+        try {
+            return socket.sendBatch(messages);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 完成一批消息的 Future 并释放其占用的额度
+     *
+     * @return 下一批消息，队列为空或已关闭时为 null
+     */
+    private List<Entry> written(List<Entry> batch, Throwable e) {
+        for (var entry : batch) {
+            if (e == null) {
+                entry.future.complete(null);
+            } else {
+                entry.future.completeExceptionally(e);
+            }
+        }
+        List<Entry> next = null;
+        lock.lock();
+        try {
+            for (var entry : batch) {
+                depth--;
+                bytes -= entry.message.length();
+            }
+            space.signalAll();
+            if (e != null) {
+                closed = true;
+            }
+            if (!closed && !waiting.isEmpty()) {
+                next = take();
+            } else {
+                flushing = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (e != null) {
+            close();
+        }
+        return next;
+    }
+
+    /**
+     * 关闭队列，排队中的消息以 {@link IOException} 失败，阻塞的发送线程被唤醒
+     */
+    void close() {
+        List<Entry> failed;
+        lock.lock();
+        try {
+            closed = true;
+            failed = take();
+            for (var entry : failed) {
+                depth--;
+                bytes -= entry.message.length();
+            }
+            space.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        failed.forEach(entry -> entry.future.completeExceptionally(new IOException("connection closed")));
+    }
+
+    /**
+     * 获取尚未写出的消息数，包括正在写出的一批
+     *
+     * @return 消息数
+     */
+    public int depth() {
+        lock.lock();
+        try {
+            return depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取尚未写出的负载字节数，包括正在写出的一批
+     *
+     * @return 字节数
+     */
+    public long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取队列深度的历史最大值
+     *
+     * @return 消息数
+     */
+    public int peakDepth() {
+        lock.lock();
+        try {
+            return peakDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取被丢弃的消息数
+     *
+     * @return 消息数
+     */
+    public long dropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取被拒绝的消息数
+     *
+     * @return 消息数
+     */
+    public long rejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(Message message, CompletableFuture<Void> future) {
+    }
+}
@@ -28,21 +28,44 @@
 
 package io.github.xiaomisum.simplewebsocket;
 
+import org.eclipse.jetty.websocket.api.BatchMode;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.annotations.*;
 import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.eclipse.jetty.websocket.common.WebSocketFrame;
+import org.eclipse.jetty.websocket.common.WebSocketRemoteEndpoint;
+import org.eclipse.jetty.websocket.common.WebSocketSession;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
+import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
+import org.eclipse.jetty.websocket.common.frames.ContinuationFrame;
+import org.eclipse.jetty.websocket.common.frames.DataFrame;
+import org.eclipse.jetty.websocket.common.frames.PingFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 
 /**
  * WebSocket服务套接字类，处理WebSocket连接的各个方面
+ * <p>
+ * 连接的打开与交互的完成由jetty回调驱动的 {@link CompletableFuture} 表示，
+ * 阻塞等待方法 {@link #awaitOpen(int, TimeUnit)} 与 {@link #awaitClose(int, TimeUnit)} 基于这两个 Future 实现
  *
  * @author xiaomi
  * Created at 2025/10/26 21:25
@@ -50,17 +73,64 @@ import java.util.function.Function;
 @WebSocket
 public class ServiceSocket {
 
-    private final Response response;
-    private final Function<String, Boolean> closeConnectHandler;
-    private final Function<byte[], String> byteToStringConverter;
+    private static final byte[] EMPTY = new byte[0];
+
+    private volatile Response response;
+    private volatile Function<String, Boolean> closeConnectHandler;
+    private volatile Function<byte[], String> byteToStringConverter;
+    private volatile Predicate<ByteBuffer> completeWhen;
+    private volatile long lastPongAt;
+    private volatile long lastReceivedAt;
+    private volatile long pingPayload;
+    private volatile long pingSentAt;
+    private volatile boolean measureRtt;
+    private volatile Histogram rtt;
+    private volatile SendQueue sendQueue;
+    private volatile Consumer<Message> listener;
+    private volatile FrameSink sink;
+    private volatile Compression compression;
+    private Frame.Type sinkType;
+    private volatile MetricsListener metrics = MetricsListener.NOOP;
+    private volatile URI uri;
+    private volatile long connectStartedAt;
+    private final MessageAggregator aggregator = new MessageAggregator();
     protected WebSocketClient client;
-    protected CountDownLatch openLatch = new CountDownLatch(1);
-    protected CountDownLatch closeLatch = new CountDownLatch(1);
-    protected Session session;
-    protected boolean connected = false;
+    protected final CompletableFuture<Session> opened = new CompletableFuture<>();
+    protected volatile CompletableFuture<Void> completion = new CompletableFuture<>();
+    /**
+     * 连接打开或失败时释放，与 {@link #opened()} 同步
+     *
+     * @deprecated 使用 {@link #opened()}
+     */
+    @Deprecated
+    protected CountDownLatch openLatch = latch(opened);
+    /**
+     * 当前交互完成时释放，每次交互重新创建，与 {@link #completion()} 同步
+     *
+     * @deprecated 使用 {@link #completion()}
+     */
+    @Deprecated
+    protected volatile CountDownLatch closeLatch = latch(completion);
+    protected volatile Session session;
+    protected volatile boolean connected = false;
+    private volatile boolean closeRequested = false;
+    private volatile int closeStatus;
+    private volatile boolean partial = false;
+    private long partialBytes;
 
     /**
-     * 构造一个新的服务套接字实例
+     * 构造一个新的服务套接字实例，连接由共享的 {@link WebSocketEngine} 管理
+     *
+     * @param response              响应对象
+     * @param closeConnectHandler   关闭连接处理函数
+     * @param byteToStringConverter 字节数组到字符串的转换函数
+     */
+    public ServiceSocket(Response response, Function<String, Boolean> closeConnectHandler, Function<byte[], String> byteToStringConverter) {
+        this(null, response, closeConnectHandler, byteToStringConverter);
+    }
+
+    /**
+     * 构造一个新的服务套接字实例，连接关闭时停止独占的客户端
      *
      * @param client                WebSocket客户端
      * @param response              响应对象
@@ -75,52 +145,318 @@ public class ServiceSocket {
     }
 
     /**
-     * 处理文本消息
+     * 创建一个在 Future 完成时释放的闩锁，保持已废弃的闩锁字段与 Future 同步
+     */
+    private static CountDownLatch latch(CompletableFuture<?> future) {
+        var latch = new CountDownLatch(1);
+        future.whenComplete((v, e) -> latch.countDown());
+        return latch;
+    }
+
+    /**
+     * 在已打开的连接上开始一次新的交互，供连接池复用连接时使用
+     *
+     * @param response              响应对象
+     * @param closeConnectHandler   关闭连接处理函数
+     * @param byteToStringConverter 字节数组到字符串的转换函数
+     * @param completeWhen          基于消息负载的完成条件
+     */
+    CompletableFuture<Void> begin(Response response, Function<String, Boolean> closeConnectHandler, Function<byte[], String> byteToStringConverter,
+                                  Predicate<ByteBuffer> completeWhen) {
+        var completion = new CompletableFuture<Void>();
+        this.closeLatch = latch(completion);
+        this.completion = completion;
+        this.closeConnectHandler = closeConnectHandler;
+        this.byteToStringConverter = byteToStringConverter;
+        this.completeWhen = completeWhen;
+        this.response = response;
+        if (!connected) {
+            completion.complete(null);
+        }
+        return completion;
+    }
+
+    /**
+     * 设置消息监听器，每条完整消息在写入响应之前交给监听器，与是否处于交互中无关
      *
-     * @param message 接收到的文本消息
+     * @param listener 消息监听器
      */
-    @OnWebSocketMessage
-    public void onMessage(String message) {
-        if (closeConnectHandler == null || closeConnectHandler.apply(message)) {
-            closeLatch.countDown();
+    void listen(Consumer<Message> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 设置落盘目标，之后的交互中收到的数据帧直接写入目标，不在内存中拼接消息；交互结束时清除
+     *
+     * @param sink 落盘目标
+     */
+    void sink(FrameSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 设置连接的压缩选项，连接打开后应用到协商成功的 {@link DeflateExtension}
+     *
+     * @param compression 压缩选项
+     */
+    void compression(Compression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 设置指标监听器，由 {@link WebSocketEngine} 在发起连接时调用
+     *
+     * @param metrics 指标监听器
+     * @param uri     服务地址
+     */
+    void observe(MetricsListener metrics, URI uri) {
+        this.uri = uri;
+        this.connectStartedAt = System.nanoTime();
+        this.metrics = metrics;
+    }
+
+    MetricsListener metrics() {
+        return metrics;
+    }
+
+    URI uri() {
+        return uri;
+    }
+
+    /**
+     * 为连接设置有界发送队列，之后 {@link #enqueue(Message)} 经过队列发送
+     *
+     * @param maxMessages 最多未写出的消息数
+     * @param maxBytes    最多未写出的负载字节数
+     * @param overflow    队列满时的处理方式
+     */
+    void sendQueue(int maxMessages, long maxBytes, OverflowPolicy overflow) {
+        this.sendQueue = new SendQueue(this, maxMessages, maxBytes, overflow);
+    }
+
+    /**
+     * 获取连接的发送队列，可读取队列深度等指标
+     *
+     * @return 发送队列，未设置时返回null
+     */
+    public SendQueue sendQueue() {
+        return sendQueue;
+    }
+
+    /**
+     * 异步发送一条消息，设置了发送队列时经过队列，受队列上限与溢出策略约束
+     *
+     * @param message 消息
+     * @return 消息写出后完成的 Future
+     */
+    public CompletableFuture<Void> enqueue(Message message) {
+        var sendQueue = this.sendQueue;
+        if (sendQueue != null) {
+            return sendQueue.offer(message);
         }
+        return message.isText() ? sendMessageAsync(message.text()) : sendMessageAsync(message.bytes());
     }
 
     /**
-     * 处理二进制消息
+     * 异步发送文本消息，设置了发送队列时经过队列，见 {@link #enqueue(Message)}
      *
-     * @param message 接收到的二进制消息
+     * @param message 文本消息
+     * @return 消息写出后完成的 Future
+     */
+    public CompletableFuture<Void> enqueue(String message) {
+        var sendQueue = this.sendQueue;
+        return sendQueue == null ? sendMessageAsync(message) : sendQueue.offer(Message.text(message));
+    }
+
+    /**
+     * 异步发送二进制消息，设置了发送队列时经过队列，见 {@link #enqueue(Message)}
+     *
+     * @param message 二进制消息
+     * @return 消息写出后完成的 Future
+     */
+    public CompletableFuture<Void> enqueue(byte[] message) {
+        var sendQueue = this.sendQueue;
+        return sendQueue == null ? sendMessageAsync(message) : sendQueue.offer(Message.binary(message));
+    }
+
+    /**
+     * 结束当前交互，连接空闲期间收到的消息不再写入响应
+     */
+    void end() {
+        this.response = null;
+        this.closeConnectHandler = null;
+        this.byteToStringConverter = null;
+        this.completeWhen = null;
+        this.sink = null;
+    }
+
+    /**
+     * 设置基于消息负载的完成条件，以只读 {@link ByteBuffer} 视图检查每条消息，不做文本转换
+     * <p>
+     * 与关闭连接处理函数同时设置时，任意一个满足即完成交互
+     *
+     * @param completeWhen 完成条件
+     * @return 当前服务套接字实例
+     */
+    public ServiceSocket completeWhen(Predicate<ByteBuffer> completeWhen) {
+        this.completeWhen = completeWhen;
+        return this;
+    }
+
+    /**
+     * 按收到一条完整的文本消息处理，与连接上收到的消息相同：写入响应并判断是否完成交互
+     * <p>
+     * 连接上收到的消息由 {@link #onFrame(Frame)} 拼接后直接处理，不经过此方法
+     *
+     * @param message 文本消息
+     */
+    public void onMessage(String message) {
+        receive(new Message(message, System.nanoTime()));
+    }
+
+    /**
+     * 按收到一条完整的二进制消息处理，与连接上收到的消息相同：写入响应并判断是否完成交互
+     * <p>
+     * 连接上收到的消息由 {@link #onFrame(Frame)} 拼接后直接处理，不经过此方法
+     *
+     * @param message 二进制消息
      * @param offset  数据偏移量
      * @param length  数据长度
      */
-    @OnWebSocketMessage
     public void onMessage(byte[] message, int offset, int length) {
-        // 使用函数式方法将byte[]转换为String
-        if (closeConnectHandler == null || closeConnectHandler.apply(byteToStringConverter.apply(message))) {
-            closeLatch.countDown();
+        var payload = offset == 0 && length == message.length ? message : Arrays.copyOfRange(message, offset, offset + length);
+        receive(new Message(Message.Type.BINARY, payload, System.nanoTime()));
+    }
+
+    /**
+     * 处理一条完整的消息：报告指标、交给消息监听器，有进行中的交互时写入响应并判断是否完成交互
+     *
+     * @param message 完整的消息
+     */
+    void receive(Message message) {
+        metrics.onMessage(uri, message);
+        var listener = this.listener;
+        if (listener != null) {
+            listener.accept(message);
+        }
+        var response = this.response;
+        if (response == null) {
+            return;
         }
+        response.add(message);
+        dispatch(message);
     }
 
     /**
-     * 处理WebSocket帧
+     * 判断一条消息是否完成当前交互
+     * <p>
+     * 未设置任何条件时第一条消息即完成交互；先以只读视图检查 {@link #completeWhen(Predicate)}，
+     * 只有设置了关闭连接处理函数时才把消息转换为文本。文本消息按UTF-8解码，二进制消息优先使用字节数组到字符串的转换函数，
+     * 否则按响应的字符集解码；解码结果缓存在消息上，之后的 {@link Response#text()} 不再重复解码
+     *
+     * @param message 完整的消息
+     */
+    private void dispatch(Message message) {
+        var completeWhen = this.completeWhen;
+        var closeConnectHandler = this.closeConnectHandler;
+        if (completeWhen == null && closeConnectHandler == null
+                || completeWhen != null && completeWhen.test(message.buffer())
+                || closeConnectHandler != null && closeConnectHandler.apply(decode(message))) {
+            completion.complete(null);
+        }
+    }
+
+    private String decode(Message message) {
+        if (message.isText()) {
+            return message.text();
+        }
+        var byteToStringConverter = this.byteToStringConverter;
+        if (byteToStringConverter != null) {
+            return byteToStringConverter.apply(message.bytes());
+        }
+        var response = this.response;
+        return message.text(response != null ? response.charset() : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 处理WebSocket帧，数据帧交给 {@link MessageAggregator} 拼接，消息完整后交给 {@link #receive(Message)}
+     * <p>
+     * 消息的拼接只在这里进行一次，因此不使用 {@link OnWebSocketMessage}，避免jetty重复聚合
      *
      * @param frame WebSocket帧
      */
     @OnWebSocketFrame
     public void onFrame(Frame frame) {
-        response.endTime = System.currentTimeMillis();
-        var payload = frame.getPayload();
-        byte[] bytes;
-        if (payload.hasArray()) {
-            bytes = payload.array();
-        } else {
-            // 对于没有数组支持的ByteBuffer（如直接缓冲区），我们需要复制数据
-            bytes = new byte[payload.remaining()];
-            payload.duplicate().get(bytes);
+        var receivedAt = System.nanoTime();
+        lastReceivedAt = receivedAt;
+        if (frame.getType() == Frame.Type.PONG) {
+            lastPongAt = receivedAt;
+            pong(frame, receivedAt);
+            return;
+        }
+        if (frame.getType().isControl()) {
+            return;
+        }
+        var metrics = this.metrics;
+        metrics.onFrame(uri, frame.getPayloadLength());
+        var current = this.response;
+        if (current != null) {
+            var timing = current.timing();
+            if (timing.firstFrame == 0) {
+                timing.firstFrame = receivedAt;
+            }
+            timing.lastFrame = receivedAt;
+            var sink = this.sink;
+            if (sink != null) {
+                write(sink, current, frame, receivedAt);
+                return;
+            }
         }
-        response.bytes = bytes;
+        if (!aggregator.append(frame, maxMessageSize(frame))) {
+            return;
+        }
+        var type = aggregator.type();
+        var bytes = aggregator.take();
+        receive(new Message(type == Frame.Type.TEXT ? Message.Type.TEXT : Message.Type.BINARY, bytes, receivedAt));
     }
 
+    /**
+     * 把数据帧写入落盘目标，一条消息写完即完成交互
+     * <p>
+     * 落盘模式下不拼接消息，关闭连接处理函数与完成条件不参与判断；响应只记录消息数与写入的字节数，
+     * 指标监听器收到的消息不包含负载
+     *
+     * @param sink       落盘目标
+     * @param response   响应对象
+     * @param frame      数据帧
+     * @param receivedAt 收到帧的时间
+     */
+    private void write(FrameSink sink, Response response, Frame frame, long receivedAt) {
+        if (frame.getType() != Frame.Type.CONTINUATION) {
+            sinkType = frame.getType();
+        }
+        try {
+            sink.write(frame.getPayload(), frame.isFin());
+        } catch (IOException e) {
+            completion.completeExceptionally(e);
+            return;
+        }
+        if (!frame.isFin()) {
+            return;
+        }
+        metrics.onMessage(uri, new Message(sinkType == Frame.Type.TEXT ? Message.Type.TEXT : Message.Type.BINARY, EMPTY, receivedAt));
+        response.skip(sink.written());
+        completion.complete(null);
+    }
+
+    private int maxMessageSize(Frame frame) {
+        var session = this.session;
+        if (session == null) {
+            return -1;
+        }
+        var type = frame.getType() == Frame.Type.CONTINUATION ? aggregator.type() : frame.getType();
+        return type == Frame.Type.TEXT ? session.getPolicy().getMaxTextMessageSize() : session.getPolicy().getMaxBinaryMessageSize();
+    }
 
     /**
      * 处理WebSocket连接打开事件
@@ -129,9 +465,40 @@ public class ServiceSocket {
      */
     @OnWebSocketConnect
     public void onOpen(Session session) {
+        var response = this.response;
+        if (response != null) {
+            response.timing().opened = System.nanoTime();
+        }
         this.session = session;
         connected = true;
-        openLatch.countDown();
+        // 协商成功的扩展位于会话的扩展栈中
+        if (session instanceof WebSocketSession webSocketSession && webSocketSession.getOutgoingHandler() instanceof ExtensionStack stack) {
+            for (var extension : stack.getExtensions()) {
+                if (extension instanceof DeflateExtension deflate) {
+                    deflate.configure(compression, metrics, uri);
+                }
+            }
+        }
+        metrics.onOpen(uri, System.nanoTime() - connectStartedAt);
+        // 在连接建立前已被要求关闭（例如交互超时），立即关闭
+        if (closeRequested) {
+            session.close(StatusCode.NORMAL, "closed session.");
+        }
+        opened.complete(session);
+    }
+
+    /**
+     * 处理WebSocket错误事件，连接建立前的错误使打开连接的 Future 失败，
+     * 建立后的错误随后会触发 {@link #onClose(int, String)}
+     *
+     * @param cause 错误原因
+     */
+    @OnWebSocketError
+    public void onError(Throwable cause) {
+        metrics.onError(uri, cause);
+        if (opened.completeExceptionally(cause)) {
+            completion.completeExceptionally(cause);
+        }
     }
 
     /**
@@ -142,11 +509,22 @@ public class ServiceSocket {
      */
     @OnWebSocketClose
     public void onClose(int statusCode, String reason) {
-        response.status = statusCode;
-        openLatch.countDown();
-        closeLatch.countDown();
+        var response = this.response;
+        if (response != null) {
+            response.status = statusCode;
+            response.timing().closed = System.nanoTime();
+        }
+        if (connected) {
+            metrics.onClose(uri, statusCode);
+        }
         connected = false;
-        //关闭 WebSocket connection
+        closeStatus = statusCode;
+        opened.completeExceptionally(new IOException("connection closed before open: " + statusCode + " " + reason));
+        completion.complete(null);
+        //关闭独占的 WebSocket connection，共享引擎的客户端由引擎自身管理
+        if (client == null) {
+            return;
+        }
         try {
             client.stop();
         } catch (Exception ignored) {
@@ -164,11 +542,23 @@ public class ServiceSocket {
      * @throws InterruptedException 如果等待过程中线程被中断
      */
     public boolean awaitClose(int duration, TimeUnit unit) throws InterruptedException {
-        boolean res = closeLatch.await(duration, unit);
+        boolean res = awaitCompletion(duration, unit);
         close(StatusCode.NORMAL, "closed session.");
         return res;
     }
 
+    /**
+     * 等待当前交互完成（关闭连接处理函数返回true或连接关闭），不关闭连接
+     *
+     * @param duration 等待时长
+     * @param unit     时间单位
+     * @return 如果在指定时间内交互完成则返回true，否则返回false
+     * @throws InterruptedException 如果等待过程中线程被中断
+     */
+    public boolean awaitCompletion(int duration, TimeUnit unit) throws InterruptedException {
+        return await(completion, duration, unit);
+    }
+
     /**
      * 等待连接打开
      *
@@ -178,7 +568,34 @@ public class ServiceSocket {
      * @throws InterruptedException 如果等待过程中线程被中断
      */
     public boolean awaitOpen(int duration, TimeUnit unit) throws InterruptedException {
-        return openLatch.await(duration, unit);
+        return await(opened, duration, unit);
+    }
+
+    private static boolean await(CompletableFuture<?> future, int duration, TimeUnit unit) throws InterruptedException {
+        try {
+            future.get(duration, unit);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取连接打开的 Future，连接建立后完成，连接失败时异常完成
+     *
+     * @return 连接打开的 Future
+     */
+    public CompletableFuture<Session> opened() {
+        return opened;
+    }
+
+    /**
+     * 获取当前交互完成的 Future，关闭连接处理函数返回true或连接关闭时完成
+     *
+     * @return 交互完成的 Future
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
     }
 
     /**
@@ -197,7 +614,9 @@ public class ServiceSocket {
      * @throws IOException 如果发送过程中发生IO异常
      */
     public void sendMessage(byte[] message) throws IOException {
-        session.getRemote().sendBytes(ByteBuffer.wrap(message));
+        requireWhole();
+        session.getRemote().sendBytes(copyOf(message));
+        metrics.onSend(uri, message.length);
     }
 
     /**
@@ -207,7 +626,400 @@ public class ServiceSocket {
      * @throws IOException 如果发送过程中发生IO异常
      */
     public void sendMessage(String message) throws IOException {
+        requireWhole();
         session.getRemote().sendString(message);
+        sent(message);
+    }
+
+    /**
+     * 异步发送二进制消息
+     *
+     * @param message 要发送的二进制消息
+     * @return 发送完成的 Future
+     */
+    public CompletableFuture<Void> sendMessageAsync(byte[] message) {
+        if (partial) {
+            return partialInProgress();
+        }
+        var future = new CompletableFuture<Void>();
+        session.getRemote().sendBytes(copyOf(message), callback(future));
+        metrics.onSend(uri, message.length);
+        return future;
+    }
+
+    /**
+     * jetty客户端发送时会原地对负载做掩码，复制一份避免修改调用方的数组
+     *
+     * @param message 调用方的数组
+     * @return 可被掩码覆盖的副本
+     */
+    private static ByteBuffer copyOf(byte[] message) {
+        return ByteBuffer.wrap(message.clone());
+    }
+
+    /**
+     * 异步发送二进制消息，直接把调用方的堆内或直接缓冲区交给jetty写出，不复制负载
+     * <p>
+     * 发送从缓冲区的 position 到 limit 的内容，不改变调用方缓冲区的 position 与 limit。
+     * jetty客户端写出时会原地对负载做掩码，写出成功后负载会被还原，因此 Future 完成前不能修改或复用缓冲区，
+     * 也不能在多个连接上同时发送同一个可写缓冲区；发送失败时缓冲区内容不确定。只读缓冲区无法原地掩码，会被复制一次后发送
+     *
+     * @param message 要发送的二进制消息
+     * @return 缓冲区可以被复用时完成的 Future
+     */
+    public CompletableFuture<Void> sendMessageAsync(ByteBuffer message) {
+        return sendMessageAsync(Message.Type.BINARY, message);
+    }
+
+    /**
+     * 异步发送一条指定类型的消息，缓冲区的使用约定与 {@link #sendMessageAsync(ByteBuffer)} 相同
+     *
+     * @param type    消息类型，文本消息的负载必须是UTF-8
+     * @param message 要发送的消息负载
+     * @return 缓冲区可以被复用时完成的 Future
+     */
+    public CompletableFuture<Void> sendMessageAsync(Message.Type type, ByteBuffer message) {
+        if (partial) {
+            return partialInProgress();
+        }
+        var future = write(type == Message.Type.TEXT ? new TextFrame() : new BinaryFrame(), message);
+        metrics.onSend(uri, message.remaining());
+        return future;
+    }
+
+    /**
+     * 使用编解码器编码并异步发送一条消息，编码结果直接交给jetty写出，不再复制
+     *
+     * @param value 对象
+     * @param codec 编解码器
+     * @param <T>   对象类型
+     * @return 消息写出后完成的 Future
+     */
+    public <T> CompletableFuture<Void> sendMessageAsync(T value, Codec<? super T> codec) {
+        return sendMessageAsync(codec.type(), codec.encode(value));
+    }
+
+    /**
+     * 异步发送二进制消息的一个分片，分片依次作为一条消息的首帧与后续帧写出，不复制负载
+     * <p>
+     * 缓冲区的使用约定与 {@link #sendMessageAsync(ByteBuffer)} 相同。jetty按提交顺序写出，
+     * 调用方无需等待前一个分片写出即可提交下一个；一条分片消息结束前不能发送其它数据消息
+     *
+     * @param fragment 消息分片
+     * @param last     是否为消息的最后一个分片
+     * @return 缓冲区可以被复用时完成的 Future
+     */
+    public CompletableFuture<Void> sendPartial(ByteBuffer fragment, boolean last) {
+        DataFrame frame = partial ? new ContinuationFrame() : new BinaryFrame();
+        frame.setFin(last);
+        partialBytes += fragment.remaining();
+        partial = !last;
+        var future = write(frame, fragment);
+        if (last) {
+            metrics.onSend(uri, partialBytes);
+            partialBytes = 0;
+        }
+        return future;
+    }
+
+    /**
+     * 把缓冲区作为数据帧的负载提交给jetty
+     * <p>
+     * 负载使用缓冲区的 duplicate，调用方的 position 与 limit 不受写出影响；
+     * 写出成功后用同一个掩码再做一次异或，还原被原地掩码的内容
+     *
+     * @param frame   数据帧
+     * @param payload 调用方的缓冲区
+     * @return 缓冲区可以被复用时完成的 Future
+     */
+    private CompletableFuture<Void> write(DataFrame frame, ByteBuffer payload) {
+        var future = new CompletableFuture<Void>();
+        if (payload.isReadOnly()) {
+            var copy = ByteBuffer.allocate(payload.remaining()).put(payload.duplicate()).flip();
+            frame.setPayload(copy);
+            remote().uncheckedSendFrame(frame, callback(future));
+            return future;
+        }
+        var view = payload.duplicate();
+        var start = view.position();
+        var end = view.limit();
+        frame.setPayload(view);
+        remote().uncheckedSendFrame(frame, new WriteCallback() {
+            @Override
+            public void writeFailed(Throwable x) {
+                future.completeExceptionally(x);
+            }
+
+            @Override
+            public void writeSuccess() {
+                unmask(frame, view, start, end);
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 还原被掩码的负载；启用了压缩等扩展时写出的是新的帧，原帧没有掩码，无需还原
+     */
+    private static void unmask(WebSocketFrame frame, ByteBuffer payload, int start, int end) {
+        if (!frame.isMasked()) {
+            return;
+        }
+        // 与jetty的Generator一致，按大端序每次异或4个字节，duplicate的字节序总是大端序
+        var mask = frame.getMask();
+        var word = ByteBuffer.wrap(mask).getInt();
+        var i = start;
+        for (; i + 4 <= end; i += 4) {
+            payload.putInt(i, payload.getInt(i) ^ word);
+        }
+        for (; i < end; i++) {
+            payload.put(i, (byte) (payload.get(i) ^ mask[(i - start) & 3]));
+        }
+    }
+
+    /**
+     * 检查没有未结束的分片消息，分片消息结束前插入新的数据消息是协议错误
+     *
+     * @throws IllegalStateException 如果分片消息尚未结束
+     */
+    private void requireWhole() {
+        if (partial) {
+            throw new IllegalStateException("partial message in progress");
+        }
+    }
+
+    private static CompletableFuture<Void> partialInProgress() {
+        return CompletableFuture.failedFuture(new IllegalStateException("partial message in progress"));
+    }
+
+    private WebSocketRemoteEndpoint remote() {
+        return (WebSocketRemoteEndpoint) session.getRemote();
+    }
+
+    /**
+     * 异步发送文本消息
+     *
+     * @param message 要发送的文本消息
+     * @return 发送完成的 Future
+     */
+    public CompletableFuture<Void> sendMessageAsync(String message) {
+        if (partial) {
+            return partialInProgress();
+        }
+        var future = new CompletableFuture<Void>();
+        session.getRemote().sendString(message, callback(future));
+        sent(message);
+        return future;
+    }
+
+    /**
+     * 以流水线方式发送一批消息，不等待前一条消息写出即提交下一条
+     * <p>
+     * 批内消息以 {@link BatchMode#ON} 提交，由jetty合并为更少的网络写操作；最后一条消息以 {@link BatchMode#OFF} 提交，
+     * 使整批消息在此刷新写出。批量模式随每一帧单独传给jetty，不修改连接共享的批量模式，
+     * 因此可以与同一连接上的其它发送、心跳并发进行
+     *
+     * @param messages 要发送的消息
+     * @return 整批消息全部写出后完成的 Future
+     */
+    public CompletableFuture<Void> sendBatch(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (partial) {
+            return partialInProgress();
+        }
+        var outgoing = (WebSocketSession) session;
+        var futures = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            var future = new CompletableFuture<Void>();
+            var message = messages.get(i);
+            // 负载在写出时被原地掩码，不能直接使用消息的字节数组
+            DataFrame frame = message.isText() ? new TextFrame() : new BinaryFrame();
+            frame.setPayload(copyOf(message.bytes()));
+            outgoing.outgoingFrame(frame, callback(future), i == messages.size() - 1 ? BatchMode.OFF : BatchMode.ON);
+            metrics.onSend(uri, message.length());
+            futures[i] = future;
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 记录发出的文本消息，只有注册了指标监听器时才计算UTF-8编码后的长度
+     *
+     * @param message 文本消息
+     */
+    private void sent(String message) {
+        var metrics = this.metrics;
+        if (metrics == MetricsListener.NOOP) {
+            return;
+        }
+        long bytes = 0;
+        for (int i = 0; i < message.length(); i++) {
+            var c = message.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        metrics.onSend(uri, bytes);
+    }
+
+    private static WriteCallback callback(CompletableFuture<Void> future) {
+        return new WriteCallback() {
+            @Override
+            public void writeFailed(Throwable x) {
+                future.completeExceptionally(x);
+            }
+
+            @Override
+            public void writeSuccess() {
+                future.complete(null);
+            }
+        };
+    }
+
+    /**
+     * 发送ping帧
+     *
+     * @param payload ping负载
+     * @throws IOException 如果发送过程中发生IO异常
+     */
+    public void sendPing(byte[] payload) throws IOException {
+        session.getRemote().sendPing(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * 获取最近一次收到pong帧的时间
+     *
+     * @return {@link System#nanoTime()} 时间戳，从未收到时为0
+     */
+    long lastPongAt() {
+        return lastPongAt;
+    }
+
+    /**
+     * 开始记录心跳的往返时间，由 {@link KeepaliveScheduler} 在连接打开后调用
+     */
+    void keepalive() {
+        lastReceivedAt = System.nanoTime();
+        measureRtt = true;
+    }
+
+    /**
+     * 获取连接是否由 {@link KeepaliveScheduler} 发送心跳
+     *
+     * @return 是否启用了心跳
+     */
+    boolean keepaliveEnabled() {
+        return measureRtt;
+    }
+
+    /**
+     * 异步发送一个心跳ping，负载是发送时间，收到负载相同的pong时记录往返时间
+     *
+     * @param now 发送时间（{@link System#nanoTime()}）
+     */
+    void ping(long now) {
+        pingPayload = now;
+        pingSentAt = now;
+        var frame = new PingFrame();
+        frame.setPayload(ByteBuffer.allocate(Long.BYTES).putLong(now).flip());
+        try {
+            remote().uncheckedSendFrame(frame, new WriteCallback() {
+                @Override
+                public void writeFailed(Throwable x) {
+                    abort(x);
+                }
+
+                @Override
+                public void writeSuccess() {
+                }
+            });
+        } catch (Exception e) {
+            abort(e);
+        }
+    }
+
+    private void pong(Frame frame, long receivedAt) {
+        var sentAt = pingSentAt;
+        var payload = frame.getPayload();
+        if (sentAt == 0 || payload == null || payload.remaining() != Long.BYTES || payload.getLong(payload.position()) != pingPayload) {
+            return;
+        }
+        pingSentAt = 0;
+        var nanos = receivedAt - sentAt;
+        if (measureRtt) {
+            // 直方图较大，收到第一个pong时才创建，很快结束的连接不分配；pong只在连接的读取线程上处理
+            var rtt = this.rtt;
+            if (rtt == null) {
+                rtt = new Histogram();
+                this.rtt = rtt;
+            }
+            rtt.record(nanos);
+        }
+        metrics.onPong(uri, nanos);
+    }
+
+    /**
+     * 获取尚未收到pong的心跳ping的发送时间
+     *
+     * @return {@link System#nanoTime()} 时间戳，没有等待中的ping时为0
+     */
+    long pingSentAt() {
+        return pingSentAt;
+    }
+
+    /**
+     * 获取最近一次收到任意帧的时间
+     *
+     * @return {@link System#nanoTime()} 时间戳
+     */
+    long lastReceivedAt() {
+        return lastReceivedAt;
+    }
+
+    /**
+     * 获取心跳的往返时间直方图（纳秒）
+     *
+     * @return 往返时间直方图，引擎未启用 {@link WebSocketEngine#keepalive(Keepalive)} 或尚未收到心跳pong时返回null
+     */
+    public Histogram rtt() {
+        return rtt;
+    }
+
+    /**
+     * 不经过关闭握手直接断开已失效的连接，随后以状态码1006触发 {@link #onClose(int, String)}
+     *
+     * @param cause 失效原因
+     */
+    void abort(Throwable cause) {
+        metrics.onError(uri, cause);
+        var session = this.session;
+        if (session == null) {
+            return;
+        }
+        try {
+            session.disconnect();
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    /**
+     * 获取连接关闭时的状态码
+     *
+     * @return 状态码，连接尚未关闭或未能建立时为0
+     */
+    int closeStatus() {
+        return closeStatus;
     }
 
     /**
@@ -224,7 +1036,9 @@ public class ServiceSocket {
      * @param statusText 状态文本
      */
     public void close(int statusCode, String statusText) {
-        //关闭 WebSocket session
+        //关闭 WebSocket session，连接尚未建立时在建立后立即关闭
+        closeRequested = true;
+        var session = this.session;
         if (session != null) {
             session.close(statusCode, statusText);
         }
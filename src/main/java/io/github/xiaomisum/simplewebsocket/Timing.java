@@ -0,0 +1,178 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+/**
+ * 一次交互各阶段的时间点，均为 {@link System#nanoTime()} 时间戳，未经过的阶段为0
+ * <p>
+ * 阶段依次为：开始、TCP连接建立（含DNS解析）、收到握手响应、连接打开、请求发送完成、收到第一帧、收到最后一帧、连接关闭；
+ * 复用长连接时不经过连接与握手阶段
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 18:40
+ */
+public final class Timing {
+
+    volatile long start;
+    volatile long connected;
+    volatile long upgraded;
+    volatile long opened;
+    volatile long sent;
+    volatile long firstFrame;
+    volatile long lastFrame;
+    volatile long closed;
+
+    /**
+     * 获取交互开始时间
+     *
+     * @return 时间戳
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * 获取TCP连接建立的时间，包含DNS解析
+     *
+     * @return 时间戳
+     */
+    public long connected() {
+        return connected;
+    }
+
+    /**
+     * 获取收到握手响应的时间
+     *
+     * @return 时间戳
+     */
+    public long upgraded() {
+        return upgraded;
+    }
+
+    /**
+     * 获取连接打开的时间
+     *
+     * @return 时间戳
+     */
+    public long opened() {
+        return opened;
+    }
+
+    /**
+     * 获取请求发送完成的时间
+     *
+     * @return 时间戳
+     */
+    public long sent() {
+        return sent;
+    }
+
+    /**
+     * 获取收到第一个数据帧的时间
+     *
+     * @return 时间戳
+     */
+    public long firstFrame() {
+        return firstFrame;
+    }
+
+    /**
+     * 获取收到最后一个数据帧的时间
+     *
+     * @return 时间戳
+     */
+    public long lastFrame() {
+        return lastFrame;
+    }
+
+    /**
+     * 获取连接关闭的时间
+     *
+     * @return 时间戳
+     */
+    public long closed() {
+        return closed;
+    }
+
+    /**
+     * 获取建立TCP连接的耗时
+     *
+     * @return 耗时（纳秒），未经过该阶段时返回-1
+     */
+    public long connect() {
+        return between(start, connected);
+    }
+
+    /**
+     * 获取握手的耗时，从TCP连接建立到连接打开
+     *
+     * @return 耗时（纳秒），未经过该阶段时返回-1
+     */
+    public long handshake() {
+        return between(connected, opened);
+    }
+
+    /**
+     * 获取首字节耗时，从请求发送完成到收到第一个数据帧，主要反映服务端的处理时间
+     *
+     * @return 耗时（纳秒），未经过该阶段时返回-1
+     */
+    public long firstByte() {
+        return between(sent, firstFrame);
+    }
+
+    /**
+     * 获取接收的耗时，从第一个数据帧到最后一个数据帧
+     *
+     * @return 耗时（纳秒），未经过该阶段时返回-1
+     */
+    public long transfer() {
+        return between(firstFrame, lastFrame);
+    }
+
+    /**
+     * 获取从开始到收到最后一个数据帧的总耗时
+     *
+     * @return 耗时（纳秒），未收到数据帧时返回-1
+     */
+    public long total() {
+        return between(start, lastFrame);
+    }
+
+    private static long between(long from, long to) {
+        return from == 0 || to == 0 ? -1 : to - from;
+    }
+
+    @Override
+    public String toString() {
+        return "Timing{connect=" + connect() + ", handshake=" + handshake() + ", firstByte=" + firstByte()
+                + ", transfer=" + transfer() + ", total=" + total() + "}";
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.api.UpgradeResponse;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.HttpClientProvider;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.eclipse.jetty.websocket.client.io.UpgradeListener;
+import org.eclipse.jetty.websocket.common.scopes.SimpleContainerScope;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * WebSocket客户端引擎，持有一个长期运行、线程安全的 jetty {@link WebSocketClient}，
+ * 所有通过该引擎执行的请求共享同一个客户端、线程池与 {@link ByteBufferPool}
+ * <p>
+ * 引擎需要显式启动与关闭：
+ * <pre>{@code
+ * try (var engine = new WebSocketEngine().start()) {
+ *     var response = new Request("ws://localhost:8080/ws").engine(engine).body("hello").execute();
+ * }
+ * }</pre>
+ * 未指定引擎的请求使用 {@link #defaultEngine()} 返回的进程级共享引擎，
+ * 启用 {@link Request#keepAlive(boolean)} 的请求从引擎的 {@link ConnectionPool} 租用连接
+ *
+ * @author xiaomi
+ * Created at 2026/10/18 10:12
+ */
+public class WebSocketEngine implements AutoCloseable {
+
+    private static volatile WebSocketEngine defaultEngine;
+
+    private String name = "simple-websocket";
+    private int minThreads = 8;
+    private int maxThreads = 200;
+    private long connectTimeout = 15000;
+    private boolean virtualThreads = false;
+    private int maxMessageSize = 64 * 1024;
+    private MetricsListener metrics = MetricsListener.NOOP;
+    private Keepalive keepalive;
+
+    private final Map<String, Timing> handshakes = new ConcurrentHashMap<>();
+
+    private volatile Executor executor;
+    private volatile ByteBufferPool bufferPool;
+    private volatile WebSocketClient client;
+    private volatile ConnectionPool pool;
+    private volatile KeepaliveScheduler keepaliveScheduler;
+    private volatile boolean closed = false;
+
+    /**
+     * 获取进程级共享引擎，首次调用时创建并启动
+     *
+     * @return 共享引擎
+     */
+    public static WebSocketEngine defaultEngine() {
+        var engine = defaultEngine;
+        if (engine == null || engine.closed) {
+            synchronized (WebSocketEngine.class) {
+                engine = defaultEngine;
+                if (engine == null || engine.closed) {
+                    engine = new WebSocketEngine().name("simple-websocket-default").start();
+                    defaultEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * 设置引擎名称，用作线程名前缀
+     *
+     * @param name 引擎名称
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine name(String name) {
+        assertNotStarted();
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * 设置线程池线程数
+     *
+     * @param minThreads 最小线程数
+     * @param maxThreads 最大线程数
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine threads(int minThreads, int maxThreads) {
+        assertNotStarted();
+        if (minThreads <= 0 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("invalid thread pool size: " + minThreads + ".." + maxThreads);
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * 设置是否使用虚拟线程，启用后jetty客户端的IO与消息回调都在虚拟线程上执行（共享定时器除外），
+     * 线程数配置不再生效；阻塞API {@link Request#execute()} 的等待基于 {@link java.util.concurrent.CompletableFuture}，
+     * 在虚拟线程中调用时不会占用载体线程
+     *
+     * @param virtualThreads 是否使用虚拟线程
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine virtualThreads(boolean virtualThreads) {
+        assertNotStarted();
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * 设置接收的单条文本/二进制消息的最大长度，超过时连接以1009状态码关闭
+     *
+     * @param maxMessageSize 最大长度（字节）
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine maxMessageSize(int maxMessageSize) {
+        assertNotStarted();
+        this.maxMessageSize = maxMessageSize > 0 ? maxMessageSize : 64 * 1024;
+        return this;
+    }
+
+    /**
+     * 设置指标监听器，引擎打开的所有连接与执行的所有交互都会回调它
+     *
+     * @param metrics 指标监听器，为null时不采集指标
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine metrics(MetricsListener metrics) {
+        assertNotStarted();
+        this.metrics = metrics == null ? MetricsListener.NOOP : metrics;
+        return this;
+    }
+
+    /**
+     * 设置客户端心跳，引擎打开的所有连接空闲时由共享定时器发送ping，pong超时的连接被断开，
+     * 往返时间记录在 {@link ServiceSocket#rtt()} 并通过 {@link MetricsListener#onPong(java.net.URI, long)} 报告
+     *
+     * @param keepalive 心跳选项，为null时不发送心跳
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine keepalive(Keepalive keepalive) {
+        assertNotStarted();
+        this.keepalive = keepalive;
+        return this;
+    }
+
+    /**
+     * 设置建立连接的超时时间
+     *
+     * @param connectTimeout 超时时间（毫秒）
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine connectTimeout(long connectTimeout) {
+        assertNotStarted();
+        this.connectTimeout = connectTimeout > 0 ? connectTimeout : 15000;
+        return this;
+    }
+
+    /**
+     * 配置长连接池
+     *
+     * @param customizer 连接池自定义器
+     * @return 当前引擎实例
+     */
+    public WebSocketEngine pool(Customizer<ConnectionPool> customizer) {
+        customizer.customize(pool());
+        return this;
+    }
+
+    /**
+     * 启动引擎，重复调用无副作用
+     *
+     * @return 当前引擎实例
+     */
+    public synchronized WebSocketEngine start() {
+        if (closed) {
+            throw new IllegalStateException("engine " + name + " is closed");
+        }
+        if (client != null) {
+            return this;
+        }
+        var executor = newExecutor();
+        var bufferPool = new MappedByteBufferPool();
+        var scope = new SimpleContainerScope(WebSocketPolicy.newClientPolicy(), bufferPool, executor, null);
+        var client = new WebSocketClient(HttpClientProvider.get(scope));
+        client.getPolicy().setMaxTextMessageSize(maxMessageSize);
+        client.getPolicy().setMaxBinaryMessageSize(maxMessageSize);
+        client.setConnectTimeout(connectTimeout);
+        // 与线程池一致使用守护线程，进程级共享引擎不阻止进程退出
+        client.getHttpClient().setScheduler(new ScheduledExecutorScheduler(name + "-scheduler", true));
+        // 替换jetty自带的 permessage-deflate 实现，以支持压缩阈值与压缩指标
+        client.getExtensionFactory().register(Compression.NAME, DeflateExtension.class);
+        // jetty把客户端中的 Request.Listener 加到每个握手请求上，请求开始发送时连接已经建立
+        client.addBean(new org.eclipse.jetty.client.api.Request.Listener.Adapter() {
+            @Override
+            public void onBegin(org.eclipse.jetty.client.api.Request request) {
+                var key = request.getHeaders().get(HttpHeader.SEC_WEBSOCKET_KEY);
+                var timing = key == null ? null : handshakes.get(key);
+                if (timing != null) {
+                    timing.connected = System.nanoTime();
+                }
+            }
+        });
+        try {
+            if (executor instanceof QueuedThreadPool threadPool) {
+                threadPool.start();
+            }
+            client.start();
+        } catch (Exception e) {
+            stopQuietly(client, executor);
+            throw new IllegalStateException("failed to start engine " + name, e);
+        }
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.client = client;
+        pool().start();
+        if (keepalive != null) {
+            keepaliveScheduler = new KeepaliveScheduler(this, keepalive);
+            keepaliveScheduler.start();
+        }
+        return this;
+    }
+
+    private Executor newExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        var executor = new QueuedThreadPool(maxThreads, minThreads);
+        executor.setName(name);
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * 使用共享客户端建立WebSocket连接
+     *
+     * @param socket  WebSocket端点
+     * @param uri     WebSocket服务地址
+     * @param request 升级请求
+     * @return 会话的 Future
+     * @throws IOException 如果建立连接过程中发生IO异常
+     */
+    public Future<Session> connect(Object socket, URI uri, ClientUpgradeRequest request) throws IOException {
+        return connect(socket, uri, request, null);
+    }
+
+    /**
+     * 打开一个新的WebSocket连接，并记录TCP连接建立与收到握手响应的时间
+     * <p>
+     * 握手请求的 Sec-WebSocket-Key 在连接建立前生成，以它关联引擎级的请求监听器与本次连接的 {@link Timing}
+     *
+     * @param socket  WebSocket端点
+     * @param uri     WebSocket服务地址
+     * @param request 握手请求
+     * @param timing  记录时间的对象，为null时不记录
+     * @return 连接会话的 Future
+     * @throws IOException 如果发起连接失败
+     */
+    Future<Session> connect(Object socket, URI uri, ClientUpgradeRequest request, Timing timing) throws IOException {
+        if (socket instanceof ServiceSocket serviceSocket) {
+            serviceSocket.observe(metrics, uri);
+            var keepaliveScheduler = this.keepaliveScheduler;
+            if (keepaliveScheduler != null) {
+                keepaliveScheduler.register(serviceSocket);
+            }
+        }
+        metrics.onConnect(uri);
+        if (timing == null) {
+            return client().connect(socket, uri, request);
+        }
+        var key = new AtomicReference<String>();
+        var future = client().connect(socket, uri, request, new UpgradeListener() {
+            @Override
+            public void onHandshakeRequest(UpgradeRequest upgradeRequest) {
+                var k = upgradeRequest.getHeader(HttpHeader.SEC_WEBSOCKET_KEY.asString());
+                if (k != null) {
+                    key.set(k);
+                    handshakes.put(k, timing);
+                }
+            }
+
+            @Override
+            public void onHandshakeResponse(UpgradeResponse upgradeResponse) {
+                timing.upgraded = System.nanoTime();
+            }
+        });
+        if (future instanceof CompletableFuture<Session> completable) {
+            completable.whenComplete((session, failure) -> {
+                var k = key.get();
+                if (k != null) {
+                    handshakes.remove(k);
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * 检查引擎是否正在运行
+     *
+     * @return 如果已启动且未关闭返回true，否则返回false
+     */
+    public boolean isRunning() {
+        return client != null && !closed;
+    }
+
+    /**
+     * 获取长连接池，第一次获取时创建，避免在构造期间把未初始化完成的引擎交给连接池
+     *
+     * @return 长连接池
+     */
+    public ConnectionPool pool() {
+        var pool = this.pool;
+        if (pool != null) {
+            return pool;
+        }
+        synchronized (this) {
+            if (this.pool == null) {
+                this.pool = new ConnectionPool(this);
+            }
+            return this.pool;
+        }
+    }
+
+    /**
+     * 检查引擎是否使用虚拟线程
+     *
+     * @return 如果使用虚拟线程返回true，否则返回false
+     */
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 获取指标监听器
+     *
+     * @return 指标监听器，未设置时为 {@link MetricsListener#NOOP}
+     */
+    public MetricsListener metrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取引擎名称
+     *
+     * @return 引擎名称
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 获取共享的jetty客户端
+     *
+     * @return jetty客户端
+     */
+    WebSocketClient client() {
+        var client = this.client;
+        if (client == null || closed) {
+            throw new IllegalStateException("engine " + name + " is not running");
+        }
+        return client;
+    }
+
+    /**
+     * 获取共享线程池
+     *
+     * @return 线程池
+     */
+    Executor executor() {
+        return client().getExecutor();
+    }
+
+    /**
+     * 获取共享缓冲池
+     *
+     * @return 缓冲池
+     */
+    ByteBufferPool bufferPool() {
+        client();
+        return bufferPool;
+    }
+
+    /**
+     * 获取共享定时器
+     *
+     * @return 定时器
+     */
+    Scheduler scheduler() {
+        return client().getScheduler();
+    }
+
+    /**
+     * 关闭引擎，停止共享客户端与线程池，关闭后不能再次启动
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        var pool = this.pool;
+        if (pool != null) {
+            pool.close();
+        }
+        var keepaliveScheduler = this.keepaliveScheduler;
+        if (keepaliveScheduler != null) {
+            keepaliveScheduler.close();
+        }
+        stopQuietly(client, executor);
+    }
+
+    private void assertNotStarted() {
+        if (client != null || closed) {
+            throw new IllegalStateException("engine " + name + " is already started");
+        }
+    }
+
+    private static void stopQuietly(WebSocketClient client, Executor executor) {
+        try {
+            if (client != null) {
+                client.stop();
+            }
+        } catch (Exception ignored) {
+
+        }
+        try {
+            if (executor instanceof QueuedThreadPool threadPool) {
+                threadPool.stop();
+            } else if (executor instanceof ExecutorService executorService) {
+                executorService.shutdownNow();
+            }
+        } catch (Exception ignored) {
+
+        }
+    }
+}
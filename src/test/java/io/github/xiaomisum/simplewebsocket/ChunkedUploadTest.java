@@ -0,0 +1,131 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ChunkedUploadTest extends EchoServerSupport {
+
+    @Override
+    protected WebSocketEngine newEngine() {
+        return new WebSocketEngine().maxMessageSize(8 * 1024 * 1024);
+    }
+
+    @Test
+    public void testFileIsSentAsOneMessage() throws Exception {
+        var data = new byte[3 * 1024 * 1024 + 17];
+        new Random(3).nextBytes(data);
+        var file = Files.createTempFile("upload", ".bin");
+        try {
+            Files.write(file, data);
+            var request = new Request(server.url()).engine(engine).file(file).chunkSize(16 * 1024);
+            // 文件每次执行时重新打开
+            for (int i = 0; i < 2; i++) {
+                var response = request.execute();
+                Assert.assertEquals(response.received(), 1);
+                Assert.assertEquals(response.bytes(), data);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testChunkAlignedAndEmptyFiles() throws Exception {
+        var data = new byte[4 * 1024];
+        new Random(5).nextBytes(data);
+        var file = Files.createTempFile("upload", ".bin");
+        try {
+            Files.write(file, data);
+            Assert.assertEquals(new Request(server.url()).engine(engine).file(file).chunkSize(1024).execute().bytes(), data);
+
+            Files.write(file, new byte[0]);
+            var response = new Request(server.url()).engine(engine).file(file).execute();
+            Assert.assertEquals(response.received(), 1);
+            Assert.assertEquals(response.bytes().length, 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testInputStreamFollowedByMessages() throws Exception {
+        var data = new byte[200 * 1024];
+        new Random(9).nextBytes(data);
+        var count = new int[1];
+        var response = new Request(server.url()).engine(engine).body(new ByteArrayInputStream(data)).chunkSize(8192)
+                .message("after").execute(message -> ++count[0] == 2);
+
+        var messages = response.messages();
+        Assert.assertEquals(messages.size(), 2);
+        Assert.assertEquals(messages.get(0).bytes(), data);
+        Assert.assertEquals(new String(messages.get(1).bytes(), StandardCharsets.UTF_8), "after");
+    }
+
+    @Test
+    public void testMissingFileFailsExchange() {
+        var request = new Request(server.url()).engine(engine).file(Path.of("missing-" + System.nanoTime()));
+        Assert.expectThrows(NoSuchFileException.class, request::execute);
+    }
+
+    @Test
+    public void testConcurrentUploadsOnSmallThreadPool() throws Exception {
+        var data = new byte[2 * 1024 * 1024];
+        new Random(9).nextBytes(data);
+        var file = Files.createTempFile("upload", ".bin");
+        // 上传数远多于线程数，读取任务与连接回调共用同一个线程池
+        try (var small = new WebSocketEngine().threads(8, 8).maxMessageSize(4 * 1024 * 1024).start()) {
+            Files.write(file, data);
+            var template = new Request(server.url()).engine(small).file(file).chunkSize(8 * 1024).timeout(30).freeze();
+            var futures = new ArrayList<CompletableFuture<Response>>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(template.executeAsync());
+            }
+            for (var future : futures) {
+                var response = future.get(60, TimeUnit.SECONDS);
+                Assert.assertFalse(response.timedOut());
+                Assert.assertEquals(response.bytes(), data);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class CodecTest extends EchoServerSupport {
+
+    record Point(int x, int y) {
+    }
+
+    private static final Codec<Point> POINT = Codec.of(Message.Type.BINARY,
+            point -> ByteBuffer.allocate(8).putInt(point.x()).putInt(point.y()).flip(),
+            payload -> new Point(payload.getInt(), payload.getInt()));
+
+    @Test
+    public void testTypedBodyAndResponse() throws Exception {
+        var response = new Request(server.url()).body(new Point(3, 4), POINT)
+                .message(Message.binary(new byte[]{0, 0, 0, 5, 0, 0, 0, 6}))
+                .completeWhen(POINT, point -> point.x() == 5)
+                .execute();
+
+        Assert.assertEquals(response.messages().size(), 2);
+        Assert.assertEquals(response.messages().get(0).decode(POINT), new Point(3, 4));
+        Assert.assertEquals(response.decode(POINT), new Point(5, 6));
+        Assert.assertEquals(response.stream(POINT).toList(), List.of(new Point(3, 4), new Point(5, 6)));
+    }
+
+    @Test
+    public void testTextCodecSendsTextFrames() throws Exception {
+        var response = new Request(server.url()).body("你好", Codec.utf8()).execute();
+
+        Assert.assertTrue(response.last().isText());
+        Assert.assertEquals(response.decode(Codec.utf8()), "你好");
+        Assert.assertEquals(response.decode(Codec.bytes()), "你好".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTypedStream() throws Exception {
+        var points = new CopyOnWriteArrayList<Point>();
+        var done = new CompletableFuture<Void>();
+        new Request(server.url()).query(query -> {
+            query.put("repeat", 5);
+            query.put("close", true);
+        }).body(new Point(1, 2), POINT).stream(POINT).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Point item) {
+                points.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        done.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(points, List.of(new Point(1, 2), new Point(1, 2), new Point(1, 2), new Point(1, 2), new Point(1, 2)));
+    }
+
+    @Test
+    public void testStreamFailsOnDecodeError() throws Exception {
+        var done = new CompletableFuture<Void>();
+        new Request(server.url()).query(query -> query.put("repeat", 5)).body("x").stream(POINT).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Point item) {
+                done.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        var failure = Assert.expectThrows(Exception.class, () -> done.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failure.getCause() instanceof BufferUnderflowException, String.valueOf(failure.getCause()));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CompressionTest extends EchoServerSupport {
+
+    private static final String JSON = "{\"symbol\":\"XIAOMI\",\"price\":12.34,\"volume\":1000,\"side\":\"buy\"},".repeat(200);
+
+    @Test
+    public void testCompressedExchangeReportsRatio() throws Exception {
+        var metrics = new DefaultMetricsListener();
+        try (var engine = new WebSocketEngine().metrics(metrics).start()) {
+            var response = new Request(server.url()).engine(engine).compression(Compression.deflate()).body(JSON).execute();
+            Assert.assertEquals(response.text(), JSON);
+
+            var endpoint = metrics.snapshot().endpoints().get(server.url());
+            Assert.assertEquals(endpoint.compressIn(), JSON.length());
+            Assert.assertTrue(endpoint.compressionRatio() > 5, "ratio " + endpoint.compressionRatio());
+            Assert.assertEquals(endpoint.decompressOut(), JSON.length());
+            Assert.assertTrue(endpoint.decompressionRatio() > 5, "ratio " + endpoint.decompressionRatio());
+            Assert.assertTrue(endpoint.compressNanos() > 0 && endpoint.decompressNanos() > 0);
+        }
+    }
+
+    @Test
+    public void testMessagesBelowThresholdAreNotCompressed() throws Exception {
+        var metrics = new DefaultMetricsListener();
+        try (var engine = new WebSocketEngine().metrics(metrics).start()) {
+            var count = new AtomicInteger();
+            var response = new Request(server.url()).engine(engine).compression(Compression.deflate().threshold(1024))
+                    .body("small").message(JSON).execute(message -> count.incrementAndGet() == 2);
+            Assert.assertEquals(response.messages().get(0).text(), "small");
+            Assert.assertEquals(response.messages().get(1).text(), JSON);
+
+            var endpoint = metrics.snapshot().endpoints().get(server.url());
+            Assert.assertEquals(endpoint.compressIn(), JSON.length());
+        }
+    }
+
+    @Test
+    public void testNoContextTakeoverOnPooledConnection() throws Exception {
+        var compression = Compression.deflate().clientNoContextTakeover(true).serverNoContextTakeover(true).serverMaxWindowBits(10);
+        try (var engine = new WebSocketEngine().start()) {
+            for (int i = 0; i < 3; i++) {
+                var body = i + JSON;
+                var response = new Request(server.url()).engine(engine).keepAlive(true).compression(compression).body(body).execute();
+                Assert.assertEquals(response.text(), body);
+            }
+            // 不压缩的请求不复用压缩的连接
+            Assert.assertEquals(new Request(server.url()).engine(engine).keepAlive(true).body("plain").execute().text(), "plain");
+            Assert.assertEquals(engine.pool().idleCount(), 2);
+        }
+    }
+
+    @Test
+    public void testFragmentedMessagesInBothDirections() throws Exception {
+        var data = new byte[300 * 1024];
+        new Random(17).nextBytes(data);
+        try (var engine = new WebSocketEngine().maxMessageSize(1024 * 1024).start()) {
+            var response = new Request(server.url()).engine(engine).compression(Compression.deflate())
+                    .query(query -> query.put("fragments", 3))
+                    .body(new ByteArrayInputStream(data)).chunkSize(64 * 1024).execute();
+            Assert.assertEquals(response.bytes(), data);
+        }
+    }
+
+    @Test
+    public void testOffer() {
+        Assert.assertEquals(Compression.deflate().offer(), "permessage-deflate");
+        Assert.assertEquals(Compression.deflate().clientNoContextTakeover(true).serverMaxWindowBits(12).offer(),
+                "permessage-deflate; client_no_context_takeover; server_max_window_bits=12");
+        Assert.expectThrows(IllegalArgumentException.class, () -> Compression.deflate().serverMaxWindowBits(16));
+        Assert.expectThrows(IllegalArgumentException.class, () -> Compression.deflate().threshold(-1));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ConnectionPoolTest extends EchoServerSupport {
+
+    @Test
+    public void testReuseConnection() throws Exception {
+        try (var engine = new WebSocketEngine().start()) {
+            for (int i = 0; i < 10; i++) {
+                var response = new Request(server.url()).engine(engine).keepAlive(true).body("hello" + i).execute();
+                Assert.assertEquals(response.text(), "hello" + i);
+            }
+            Assert.assertEquals(engine.pool().idleCount(), 1);
+        }
+    }
+
+    @Test
+    public void testKeyedByHeaders() throws Exception {
+        try (var engine = new WebSocketEngine().start()) {
+            new Request(server.url()).engine(engine).keepAlive(true).body("a").execute();
+            new Request(server.url()).engine(engine).keepAlive(true).headers(map -> map.put("X-Tenant", "b")).body("b").execute();
+            new Request(server.url()).engine(engine).keepAlive(true).headers(map -> map.put("X-Tenant", "b")).body("b").execute();
+            Assert.assertEquals(engine.pool().idleCount(), 2);
+        }
+    }
+
+    @Test
+    public void testNullHeaderValue() throws Exception {
+        try (var engine = new WebSocketEngine().start()) {
+            var response = new Request(server.url()).engine(engine).keepAlive(true).headers(map -> map.put("X-Empty", null)).body("a").execute();
+            Assert.assertEquals(response.text(), "a");
+            Assert.assertEquals(engine.pool().idleCount(), 1);
+        }
+    }
+
+    @Test
+    public void testMaxPerEndpoint() throws Exception {
+        var pool = Executors.newFixedThreadPool(16);
+        try (var engine = new WebSocketEngine().pool(p -> p.maxPerEndpoint(4)).start()) {
+            var tasks = new ArrayList<Callable<Response>>();
+            for (int i = 0; i < 64; i++) {
+                var body = "hello" + i;
+                tasks.add(() -> new Request(server.url()).engine(engine).keepAlive(true).body(body).execute());
+            }
+            var futures = pool.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                Assert.assertEquals(futures.get(i).get().text(), "hello" + i);
+            }
+            Assert.assertTrue(engine.pool().idleCount() <= 4);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        try (var engine = new WebSocketEngine().pool(p -> p.idleTimeout(100).healthCheckInterval(50)).start()) {
+            new Request(server.url()).engine(engine).keepAlive(true).body("hello").execute();
+            Assert.assertEquals(engine.pool().idleCount(), 1);
+            Thread.sleep(500);
+            Assert.assertEquals(engine.pool().idleCount(), 0);
+        }
+    }
+
+    @Test
+    public void testHealthCheckKeepsLiveConnection() throws Exception {
+        try (var engine = new WebSocketEngine().pool(p -> p.healthCheckInterval(50)).start()) {
+            new Request(server.url()).engine(engine).keepAlive(true).body("hello").execute();
+            Thread.sleep(400);
+            Assert.assertEquals(engine.pool().idleCount(), 1);
+            var response = new Request(server.url()).engine(engine).keepAlive(true).body("again").execute();
+            Assert.assertEquals(response.text(), "again");
+        }
+    }
+
+    @Test
+    public void testHealthCheckLeavesKeepalivePingsAlone() throws Exception {
+        try (var engine = new WebSocketEngine().keepalive(Keepalive.every(100).timeout(1000)).pool(p -> p.healthCheckInterval(20)).start()) {
+            new Request(server.url()).engine(engine).keepAlive(true).body("hello").execute();
+            Thread.sleep(650);
+            var lease = engine.pool().acquire(URI.create(server.url()), null, null, 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+            var rtt = lease.socket().rtt();
+            lease.release(true);
+            // 只有心跳每100毫秒发送ping，连接池每20毫秒的健康检查不再发送ping覆盖心跳等待中的ping
+            Assert.assertNotNull(rtt);
+            Assert.assertTrue(rtt.count() <= 7, String.valueOf(rtt.count()));
+        }
+    }
+
+    @Test
+    public void testCloseEngineClosesIdleConnections() throws Exception {
+        var engine = new WebSocketEngine().start();
+        new Request(server.url()).engine(engine).keepAlive(true).body("hello").execute();
+        engine.close();
+        Assert.assertEquals(engine.pool().idleCount(), 0);
+    }
+}
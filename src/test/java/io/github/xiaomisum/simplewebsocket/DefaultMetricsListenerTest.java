@@ -0,0 +1,106 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+public class DefaultMetricsListenerTest extends EchoServerSupport {
+
+    @Test
+    public void testExchangesAreAggregatedPerEndpoint() throws Exception {
+        var metrics = new DefaultMetricsListener();
+        try (var engine = new WebSocketEngine().metrics(metrics).start()) {
+            for (int i = 0; i < 5; i++) {
+                new Request(server.url()).engine(engine).query(query -> query.put("fragments", 2)).body("hello").execute();
+            }
+            new Request(server.url()).engine(engine).query(query -> query.put("close", true)).body("bye").execute(message -> false);
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            DefaultMetricsListener.EndpointSnapshot endpoint;
+            do {
+                Thread.sleep(20);
+                endpoint = metrics.snapshot().endpoints().get(server.url());
+            } while (endpoint.openSessions() > 0 && System.nanoTime() < deadline);
+
+            Assert.assertEquals(metrics.snapshot().endpoints().size(), 1);
+            Assert.assertEquals(endpoint.connects(), 6);
+            Assert.assertEquals(endpoint.opened(), 6);
+            Assert.assertEquals(endpoint.openSessions(), 0);
+            Assert.assertEquals(endpoint.messagesOut(), 6);
+            Assert.assertEquals(endpoint.messagesIn(), 6);
+            Assert.assertEquals(endpoint.bytesOut(), 5 * 5 + 3);
+            Assert.assertEquals(endpoint.bytesIn(), 5 * 5 + 3);
+            Assert.assertEquals(endpoint.exchanges(), 6);
+            Assert.assertTrue(endpoint.exchangeP99() >= endpoint.exchangeP50());
+            Assert.assertTrue(endpoint.connectP50() > 0);
+            Assert.assertEquals(endpoint.closeCodes().values().stream().mapToLong(Long::longValue).sum(), 6);
+        }
+    }
+
+    @Test
+    public void testConnectFailureCountsAsError() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var metrics = new DefaultMetricsListener();
+        try (var engine = new WebSocketEngine().metrics(metrics).start()) {
+            var url = "ws://localhost:" + port + "/echo";
+            Assert.expectThrows(Exception.class, () -> new Request(url).engine(engine).execute());
+
+            var endpoint = metrics.snapshot().endpoints().get(url);
+            Assert.assertEquals(endpoint.connects(), 1);
+            Assert.assertEquals(endpoint.errors(), 1);
+            Assert.assertEquals(endpoint.opened(), 0);
+            Assert.assertEquals(endpoint.exchanges(), 0);
+        }
+    }
+
+    @Test
+    public void testMessageRateBetweenSnapshots() throws Exception {
+        var metrics = new DefaultMetricsListener();
+        var uri = URI.create("ws://localhost:1/feed?token=1");
+        var before = metrics.snapshot();
+        for (int i = 0; i < 100; i++) {
+            metrics.onMessage(uri, Message.text("x"));
+        }
+        Thread.sleep(100);
+        var after = metrics.snapshot();
+
+        var rate = after.messagesInPerSecond("ws://localhost:1/feed", before);
+        Assert.assertTrue(rate > 0 && rate <= 1000, "rate " + rate);
+        Assert.assertEquals(after.endpoints().get("ws://localhost:1/feed").messagesIn(), 100);
+    }
+}
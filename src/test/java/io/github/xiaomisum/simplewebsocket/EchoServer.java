@@ -0,0 +1,70 @@
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+
+import java.io.IOException;
+
+/**
+ * 绑定随机端口的内嵌回显服务，测试与基准测试之间互不冲突；
+ * 查询参数 fragments=N 使回显消息拆分为 N 个分片，repeat=N 使每条消息回显 N 次，
+ * close=true 使服务端回显后关闭连接
+ */
+public class EchoServer implements AutoCloseable {
+
+    private final Server server;
+    private final int port;
+
+    private EchoServer(Server server) {
+        this.server = server;
+        this.port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    public static EchoServer start() throws Exception {
+        Server server = new Server(0);
+        WebSocketHandler wsHandler = new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.getPolicy().setMaxTextMessageSize(64 * 1024 * 1024);
+                factory.getPolicy().setMaxBinaryMessageSize(64 * 1024 * 1024);
+                factory.setCreator((request, response) -> {
+                    var fragments = request.getParameterMap().get("fragments");
+                    var repeat = request.getParameterMap().get("repeat");
+                    var close = request.getParameterMap().get("close");
+                    var closeCode = request.getParameterMap().get("closeCode");
+                    return new EchoSocket(fragments == null ? 1 : Integer.parseInt(fragments.get(0)),
+                            repeat == null ? 1 : Integer.parseInt(repeat.get(0)),
+                            close != null && Boolean.parseBoolean(close.get(0)),
+                            closeCode == null ? 0 : Integer.parseInt(closeCode.get(0)));
+                });
+            }
+        };
+        server.setHandler(wsHandler);
+        server.start();
+        return new EchoServer(server);
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public String url() {
+        return "ws://localhost:" + port + "/echo";
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while stopping echo server", e);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("failed to stop echo server", e);
+        }
+    }
+}
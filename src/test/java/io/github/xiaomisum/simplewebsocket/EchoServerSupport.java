@@ -0,0 +1,57 @@
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+/**
+ * 需要回显服务的测试的基类：每个测试类启动一个回显服务与一个独立的引擎，静默服务在第一次使用时启动，测试类结束后全部关闭；
+ * 测试类只包含对行为的断言，需要特殊配置的引擎时覆盖 {@link #newEngine()}
+ */
+public abstract class EchoServerSupport {
+
+    protected EchoServer server;
+    protected WebSocketEngine engine;
+    private SilentServer silent;
+
+    @BeforeClass
+    public void startServers() throws Exception {
+        server = EchoServer.start();
+        engine = newEngine().start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServers() throws Exception {
+        if (engine != null) {
+            engine.close();
+        }
+        synchronized (this) {
+            if (silent != null) {
+                silent.close();
+            }
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * 创建测试类使用的引擎，由基类启动与关闭
+     *
+     * @return 尚未启动的引擎
+     */
+    protected WebSocketEngine newEngine() {
+        return new WebSocketEngine();
+    }
+
+    /**
+     * 获取完成握手后不再读写的静默服务，第一次调用时启动
+     *
+     * @return 静默服务
+     */
+    protected synchronized SilentServer silent() throws Exception {
+        if (silent == null) {
+            silent = SilentServer.start();
+        }
+        return silent;
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 只回显给发送方的 socket，不打印日志，供并发测试与基准测试使用；
+ * fragments 大于1时把回显的消息拆分为多个分片发送，repeat 大于1时每条消息回显多次，
+ * close 为true时回显后关闭连接
+ */
+public class EchoSocket implements WebSocketListener {
+
+    private static final WriteCallback NOOP = new WriteCallback() {
+        public void writeFailed(Throwable x) {
+        }
+
+        public void writeSuccess() {
+        }
+    };
+
+    private final int fragments;
+    private final int repeat;
+    private final boolean close;
+    private final int closeCode;
+    private Session session;
+
+    public EchoSocket() {
+        this(1, 1, false);
+    }
+
+    public EchoSocket(int fragments, int repeat, boolean close) {
+        this(fragments, repeat, close, 0);
+    }
+
+    public EchoSocket(int fragments, int repeat, boolean close, int closeCode) {
+        this.fragments = fragments;
+        this.repeat = repeat;
+        this.close = close;
+        this.closeCode = closeCode;
+    }
+
+    //连接关闭
+    public void onWebSocketClose(int statusCode, String reason) {
+        session = null;
+    }
+
+    //建立连接后保存session
+    public void onWebSocketConnect(Session session) {
+        this.session = session;
+    }
+
+    //错误处理
+    public void onWebSocketError(Throwable cause) {
+    }
+
+    //接收二进制消息，原样回显
+    public void onWebSocketBinary(byte[] payload, int offset, int len) {
+        for (int i = 0; i < repeat; i++) {
+            echoBinary(payload, offset, len);
+        }
+        closeIfRequested();
+    }
+
+    private void echoBinary(byte[] payload, int offset, int len) {
+        if (fragments <= 1) {
+            session.getRemote().sendBytes(ByteBuffer.wrap(payload, offset, len), NOOP);
+            return;
+        }
+        try {
+            var step = Math.max(1, len / fragments);
+            for (int i = 0; i < fragments; i++) {
+                var from = offset + Math.min(len, i * step);
+                var to = i == fragments - 1 ? offset + len : offset + Math.min(len, (i + 1) * step);
+                session.getRemote().sendPartialBytes(ByteBuffer.wrap(payload, from, to - from), i == fragments - 1);
+            }
+        } catch (IOException e) {
+            session.close();
+        }
+    }
+
+    //接收字符串消息，原样回显
+    public void onWebSocketText(String message) {
+        for (int i = 0; i < repeat; i++) {
+            echoText(message);
+        }
+        closeIfRequested();
+    }
+
+    private void closeIfRequested() {
+        if (closeCode != 0) {
+            session.close(closeCode, "bye");
+        } else if (close) {
+            session.close();
+        }
+    }
+
+    private void echoText(String message) {
+        if (fragments <= 1) {
+            session.getRemote().sendString(message, NOOP);
+            return;
+        }
+        try {
+            var step = Math.max(1, message.length() / fragments);
+            for (int i = 0; i < fragments; i++) {
+                var from = Math.min(message.length(), i * step);
+                var to = i == fragments - 1 ? message.length() : Math.min(message.length(), (i + 1) * step);
+                session.getRemote().sendPartialString(message.substring(from, to), i == fragments - 1);
+            }
+        } catch (IOException e) {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class FrameSinkTest extends EchoServerSupport {
+
+    @Test
+    public void testSaveFragmentedMessageToFile() throws Exception {
+        var data = new byte[1024 * 1024];
+        new Random(13).nextBytes(data);
+        var file = Files.createTempFile("download", ".bin");
+        // 引擎限制的最大消息长度小于响应，落盘时逐帧写入，只有单帧受限制
+        try (var engine = new WebSocketEngine().maxMessageSize(512 * 1024).start()) {
+            var request = new Request(server.url()).engine(engine).query(query -> query.put("fragments", 4))
+                    .body(ByteBuffer.wrap(data).asReadOnlyBuffer()).saveTo(file, SyncPolicy.MESSAGE);
+            var response = request.execute();
+
+            Assert.assertEquals(response.received(), 1);
+            Assert.assertEquals(response.written(), data.length);
+            Assert.assertNull(response.bytes());
+            Assert.assertEquals(Files.readAllBytes(file), data);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSinkOnPooledConnection() throws Exception {
+        try (var engine = new WebSocketEngine().start()) {
+            for (int i = 0; i < 3; i++) {
+                var out = new ByteArrayOutputStream();
+                var channel = Channels.newChannel(out);
+                var response = new Request(server.url()).engine(engine).keepAlive(true).body("message-" + i).sink(channel).execute();
+
+                Assert.assertEquals(out.toString(), "message-" + i);
+                Assert.assertEquals(response.written(), out.size());
+                // 调用方的通道不会被关闭
+                Assert.assertTrue(channel.isOpen());
+            }
+            Assert.assertEquals(engine.pool().idleCount(), 1);
+        }
+    }
+
+    @Test
+    public void testSinkFailureFailsExchange() throws Exception {
+        var out = Channels.newChannel(new ByteArrayOutputStream());
+        out.close();
+        var request = new Request(server.url()).body("hello").sink(out);
+        Assert.expectThrows(ClosedChannelException.class, request::execute);
+    }
+}
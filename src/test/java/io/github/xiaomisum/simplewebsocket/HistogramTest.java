@@ -0,0 +1,100 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class HistogramTest {
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        var histogram = new Histogram();
+        for (long i = 1; i <= 1_000_000; i++) {
+            histogram.record(i * 1000);
+        }
+        Assert.assertEquals(histogram.count(), 1_000_000);
+        Assert.assertEquals(histogram.min(), 1000);
+        Assert.assertEquals(histogram.max(), 1_000_000_000L);
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            var expected = p / 100 * 1_000_000_000L;
+            Assert.assertEquals(histogram.percentile(p), expected, expected / 64, "p" + p);
+        }
+        Assert.assertEquals(histogram.percentile(100), 1_000_000_000L);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        var histogram = new Histogram();
+        for (int i = 0; i < 128; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(histogram.percentile(50), 63);
+        Assert.assertEquals(histogram.mean(), 63.5, 0.001);
+    }
+
+    @Test
+    public void testIndexIsMonotonic() {
+        var previous = -1;
+        for (long value = 0; value < Long.MAX_VALUE / 3 && value >= 0; value = value * 3 / 2 + 1) {
+            var index = Histogram.index(value);
+            Assert.assertTrue(index >= previous);
+            Assert.assertTrue(Histogram.upperBound(index) >= value);
+            previous = index;
+        }
+        Histogram.index(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testConcurrentRecordAndMerge() throws Exception {
+        var histogram = new Histogram();
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(ThreadLocalRandom.current().nextLong(1_000_000));
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(histogram.count(), 800_000);
+
+        var merged = new Histogram();
+        merged.record(5_000_000);
+        merged.add(histogram);
+        Assert.assertEquals(merged.count(), 800_001);
+        Assert.assertEquals(merged.max(), 5_000_000);
+    }
+}
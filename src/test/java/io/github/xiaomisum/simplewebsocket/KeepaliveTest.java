@@ -0,0 +1,105 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+public class KeepaliveTest extends EchoServerSupport {
+
+    @Test
+    public void testIdleSessionsArePingedAndRttRecorded() throws Exception {
+        var metrics = new DefaultMetricsListener();
+        try (var engine = new WebSocketEngine().metrics(metrics).keepalive(Keepalive.every(40)).start();
+             var session = new Request(server.url()).engine(engine).body("hi").subscribe(message -> {
+             })) {
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((session.rtt() == null || session.rtt().count() < 3) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            Assert.assertTrue(session.rtt().count() >= 3, "pongs " + session.rtt().count());
+            Assert.assertTrue(session.rtt().max() > 0);
+            Assert.assertTrue(session.isConnected());
+
+            var endpoint = metrics.snapshot().endpoints().get(server.url());
+            Assert.assertTrue(endpoint.pongs() >= 3);
+            Assert.assertTrue(endpoint.rttP50() > 0 && endpoint.rttP50() <= endpoint.rttP99());
+        }
+    }
+
+    @Test
+    public void testRttAllocatedOnFirstPong() throws Exception {
+        try (var engine = new WebSocketEngine().keepalive(Keepalive.every(60_000)).start()) {
+            var socket = new ServiceSocket(null, null, null);
+            engine.connect(socket, URI.create(server.url()), new ClientUpgradeRequest());
+            Assert.assertTrue(socket.awaitOpen(5, TimeUnit.SECONDS));
+            // 已注册心跳但还没有收到pong，不分配直方图
+            Assert.assertNull(socket.rtt());
+
+            socket.ping(System.nanoTime());
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (socket.rtt() == null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(socket.rtt().count(), 1);
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testKeepaliveDisabledByDefault() throws Exception {
+        try (var engine = new WebSocketEngine().start();
+             var session = new Request(server.url()).engine(engine).body("hi").subscribe(message -> {
+             })) {
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!session.isConnected() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertNull(session.rtt());
+        }
+    }
+
+    @Test
+    public void testSessionWithoutPongIsClosed() throws Exception {
+        try (var engine = new WebSocketEngine().keepalive(Keepalive.every(50).timeout(100)).start()) {
+            var socket = new ServiceSocket(null, null, null);
+            var startedAt = System.nanoTime();
+            engine.connect(socket, new URI(silent().url()), new ClientUpgradeRequest());
+            Assert.assertTrue(socket.awaitOpen(5, TimeUnit.SECONDS));
+            Assert.assertTrue(socket.awaitCompletion(5, TimeUnit.SECONDS));
+            Assert.assertEquals(socket.closeStatus(), StatusCode.ABNORMAL);
+            Assert.assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(2));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+
+public class LoadRunnerTest extends EchoServerSupport {
+
+    @Test
+    public void testClosedModel() throws Exception {
+        var report = new LoadRunner(new Request(server.url()).engine(engine).body("load"))
+                .concurrency(4).rampUp(Duration.ofMillis(200)).duration(Duration.ofSeconds(1)).run();
+
+        Assert.assertTrue(report.succeeded() > 0);
+        Assert.assertEquals(report.errors(), 0);
+        Assert.assertEquals(report.latency().count(), report.total());
+        Assert.assertTrue(report.latency().percentile(50) > 0);
+    }
+
+    @Test
+    public void testOpenModelFiresScheduledArrivals() throws Exception {
+        var report = new LoadRunner(new Request(server.url()).engine(engine).body("load"))
+                .rate(200).duration(Duration.ofSeconds(1)).run();
+
+        // 计划开始时间是确定的，稳定阶段内恰好发起 rate * duration 次交互
+        Assert.assertEquals(report.total(), 200);
+        Assert.assertEquals(report.succeeded(), 200);
+        // 时长计到最后一次交互完成，最后一次交互计划在第995毫秒发起
+        Assert.assertTrue(report.elapsed().toMillis() >= 995);
+        Assert.assertEquals(report.throughput(), report.total() / (report.elapsed().toNanos() / 1e9), 0.001);
+        Assert.assertEquals(report.throughput(), 200, 20);
+    }
+
+    @Test
+    public void testFailuresAreCountedByType() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var report = new LoadRunner(new Request("ws://localhost:" + port + "/echo").engine(engine))
+                .rate(50).duration(Duration.ofMillis(200)).run();
+
+        Assert.assertEquals(report.succeeded(), 0);
+        Assert.assertEquals(report.errors(), report.total());
+        Assert.assertFalse(report.failures().isEmpty());
+    }
+
+    @Test
+    public void testTimeoutsAreClassifiedExplicitly() throws Exception {
+        // 收到回显后仍未满足完成条件，超时时已有消息且状态码为默认的1000
+        var partial = new LoadRunner(new Request(server.url()).engine(engine).body("load").timeout(1).completeWhen(payload -> false))
+                .rate(10).duration(Duration.ofMillis(200)).run();
+        Assert.assertEquals(partial.timeouts(), 2);
+        Assert.assertEquals(partial.succeeded(), 0);
+
+        var stalled = new LoadRunner(new Request(silent().url()).engine(engine).body("load").timeout(1))
+                .rate(10).duration(Duration.ofMillis(200)).run();
+        Assert.assertEquals(stalled.timeouts(), 2);
+        Assert.assertEquals(stalled.succeeded(), 0);
+        // 稳定阶段结束后仍在等待超时的交互计入时长
+        Assert.assertTrue(stalled.elapsed().compareTo(Duration.ofSeconds(1)) > 0);
+
+        // 服务端不回显就正常关闭，是成功的交互而不是超时
+        var closed = new LoadRunner(new Request(server.url() + "?repeat=0&close=true").engine(engine).body("load").timeout(1))
+                .rate(10).duration(Duration.ofMillis(200)).run();
+        Assert.assertEquals(closed.succeeded(), 2);
+        Assert.assertEquals(closed.timeouts(), 0);
+    }
+
+    @Test
+    public void testRampUpArrivals() {
+        var runner = new LoadRunner(new Request(server.url())).rate(100).rampUp(Duration.ofSeconds(2));
+        // 爬坡阶段平均到达率为目标的一半，2秒内发起100次
+        Assert.assertEquals(runner.arrivalOffset(100), Duration.ofSeconds(2).toNanos(), 1_000_000);
+        Assert.assertEquals(runner.arrivalOffset(200), Duration.ofSeconds(3).toNanos(), 1_000_000);
+        Assert.assertTrue(runner.arrivalOffset(25) > Duration.ofMillis(900).toNanos());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class MultiplexedSessionTest extends EchoServerSupport {
+
+    /**
+     * 关联ID以 "id|" 前缀写在消息开头，回显服务原样返回
+     */
+    private static final Correlator PREFIX = new Correlator() {
+        @Override
+        public String inject(String id, String message) {
+            return id + "|" + message;
+        }
+
+        @Override
+        public String extract(Message message) {
+            var text = message.text();
+            var index = text.indexOf('|');
+            return index < 0 ? null : text.substring(0, index);
+        }
+    };
+
+    @Override
+    protected WebSocketEngine newEngine() {
+        return new WebSocketEngine().threads(8, 16);
+    }
+
+    @Test
+    public void testConcurrentCalls() throws Exception {
+        try (var session = new Request(server.url()).engine(engine).multiplex(PREFIX)) {
+            var calls = new ArrayList<CompletableFuture<Message>>();
+            for (int i = 0; i < 500; i++) {
+                calls.add(session.call("payload-" + i));
+            }
+            for (int i = 0; i < calls.size(); i++) {
+                var text = calls.get(i).get(10, TimeUnit.SECONDS).text();
+                Assert.assertEquals(text.substring(text.indexOf('|') + 1), "payload-" + i);
+            }
+            Assert.assertEquals(session.pendingCount(), 0);
+            Assert.assertTrue(session.isOpen());
+        }
+    }
+
+    @Test
+    public void testBinaryCallsWithDefaultHeader() throws Exception {
+        var correlator = new Correlator() {
+            @Override
+            public String inject(String id, String message) {
+                return PREFIX.inject(id, message);
+            }
+
+            @Override
+            public String extract(Message message) {
+                return message.isText() ? PREFIX.extract(message) : Correlator.headerId(message.buffer());
+            }
+        };
+        try (var session = new Request(server.url()).engine(engine).multiplex(correlator)) {
+            var calls = new ArrayList<CompletableFuture<Message>>();
+            for (int i = 0; i < 100; i++) {
+                calls.add(session.call(new byte[]{(byte) i, 7}));
+            }
+            for (int i = 0; i < calls.size(); i++) {
+                var payload = calls.get(i).get(10, TimeUnit.SECONDS).buffer();
+                var header = 2 + Short.toUnsignedInt(payload.getShort(0));
+                Assert.assertEquals(payload.limit() - header, 2);
+                Assert.assertEquals(payload.get(header), (byte) i);
+            }
+            Assert.assertEquals(session.pendingCount(), 0);
+        }
+    }
+
+    @Test
+    public void testCallTimeout() throws Exception {
+        Correlator unanswered = new Correlator() {
+            @Override
+            public String inject(String id, String message) {
+                return message;
+            }
+
+            @Override
+            public String extract(Message message) {
+                return null;
+            }
+        };
+        try (var session = new Request(server.url()).engine(engine).multiplex(unanswered)) {
+            var call = session.call("hello", 200, TimeUnit.MILLISECONDS);
+            var e = Assert.expectThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS));
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            Assert.assertEquals(session.pendingCount(), 0);
+        }
+    }
+
+    @Test
+    public void testCloseFailsPendingCalls() throws Exception {
+        var session = new Request(server.url()).engine(engine).multiplex(new Correlator() {
+            @Override
+            public String inject(String id, String message) {
+                return message;
+            }
+
+            @Override
+            public String extract(Message message) {
+                return null;
+            }
+        });
+        var call = session.call("hello");
+        session.close();
+
+        var e = Assert.expectThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(e.getCause() instanceof IOException);
+        Assert.assertFalse(session.isOpen());
+        Assert.assertTrue(session.call("again").isCompletedExceptionally());
+    }
+}
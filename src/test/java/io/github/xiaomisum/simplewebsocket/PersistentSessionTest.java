@@ -0,0 +1,114 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class PersistentSessionTest extends EchoServerSupport {
+
+    private static final Reconnect FAST = Reconnect.backoff().initialDelay(10).maxDelay(50);
+
+    @Test
+    public void testReconnectsAndResubscribes() throws Exception {
+        var received = new AtomicInteger();
+        // 服务端回显订阅消息后以1001关闭，模拟网关重启
+        var session = new Request(server.url()).query(query -> query.put("closeCode", 1001))
+                .body("subscribe").message("replay").subscribe(message -> received.incrementAndGet(), FAST);
+        try (session) {
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (session.reconnects() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(session.reconnects() >= 3, "reconnects " + session.reconnects());
+            Assert.assertTrue(received.get() >= 3, "received " + received.get());
+            Assert.assertFalse(session.closed().isDone());
+        }
+        session.closed().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testPermanentCloseCodeEndsSession() throws Exception {
+        var session = new Request(server.url()).query(query -> query.put("closeCode", 1008)).body("subscribe")
+                .subscribe(message -> {
+                }, FAST);
+
+        var failure = Assert.expectThrows(ExecutionException.class, () -> session.closed().get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(failure.getCause() instanceof IOException);
+        Assert.assertEquals(session.reconnects(), 0);
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var session = new Request("ws://localhost:" + port + "/echo").subscribe(message -> {
+        }, FAST.maxAttempts(2));
+
+        var failure = Assert.expectThrows(ExecutionException.class, () -> session.closed().get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failure.getCause().getMessage().contains("2 reconnect attempts"), failure.getCause().getMessage());
+        Assert.assertEquals(session.reconnects(), 2);
+    }
+
+    @Test
+    public void testFlappingConnectionKeepsBackingOff() throws Exception {
+        // 每次都能打开连接，但订阅后立即以1001关闭；连接没有稳定运行，重连次数不清零，达到上限后放弃
+        var session = new Request(server.url()).query(query -> query.put("closeCode", 1001)).body("subscribe")
+                .subscribe(message -> {
+                }, Reconnect.backoff().initialDelay(10).maxDelay(1000).maxAttempts(3));
+
+        var failure = Assert.expectThrows(ExecutionException.class, () -> session.closed().get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failure.getCause().getMessage().contains("3 reconnect attempts"), failure.getCause().getMessage());
+        Assert.assertEquals(session.reconnects(), 3);
+    }
+
+    @Test
+    public void testJitteredDelay() {
+        var reconnect = Reconnect.backoff().initialDelay(100).maxDelay(1000).multiplier(2);
+        for (int i = 0; i < 200; i++) {
+            Assert.assertTrue(reconnect.delay(1) <= 100);
+            Assert.assertTrue(reconnect.delay(3) <= 400);
+            Assert.assertTrue(reconnect.delay(30) <= 1000);
+        }
+        var spread = IntStream.range(0, 200).mapToLong(i -> reconnect.delay(10)).distinct().count();
+        Assert.assertTrue(spread > 50, "distinct delays " + spread);
+        Assert.assertTrue(reconnect.retry(1001) && reconnect.retry(1006) && reconnect.retry(0));
+        Assert.assertFalse(reconnect.retry(1000) || reconnect.retry(1008));
+        Assert.expectThrows(IllegalArgumentException.class, () -> reconnect.multiplier(0.5));
+    }
+}
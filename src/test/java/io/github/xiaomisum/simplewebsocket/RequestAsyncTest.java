@@ -0,0 +1,196 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestAsyncTest extends EchoServerSupport {
+
+    @Override
+    protected WebSocketEngine newEngine() {
+        return new WebSocketEngine().threads(8, 16);
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        var response = new Request(server.url()).engine(engine).body("hello").executeAsync().get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(response.text(), "hello");
+    }
+
+    @Test
+    public void testManyInFlight() throws Exception {
+        var futures = new ArrayList<CompletableFuture<Response>>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(new Request(server.url()).engine(engine).body("hello" + i).executeAsync());
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        for (var future : futures) {
+            Assert.assertTrue(future.get().text().startsWith("hello"));
+        }
+    }
+
+    @Test
+    public void testTimeoutCompletesWithResponse() throws Exception {
+        var start = System.currentTimeMillis();
+        var response = new Request(server.url()).engine(engine).timeout(1).body("hello")
+                .executeAsync(message -> false).get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(System.currentTimeMillis() - start >= 1000);
+        Assert.assertEquals(response.text(), "hello");
+    }
+
+    @Test
+    public void testConnectFailure() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var start = System.currentTimeMillis();
+        var future = new Request("ws://localhost:" + port + "/echo").engine(engine).body("hello").executeAsync();
+        Assert.assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    public void testKeepAliveQueuesForConnection() throws Exception {
+        try (var engine = new WebSocketEngine().pool(pool -> pool.maxPerEndpoint(2)).start()) {
+            var futures = new ArrayList<CompletableFuture<Response>>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(new Request(server.url()).engine(engine).keepAlive(true).body("hello" + i).executeAsync());
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Assert.assertEquals(futures.get(i).get(30, TimeUnit.SECONDS).text(), "hello" + i);
+            }
+            Assert.assertTrue(engine.pool().idleCount() <= 2);
+        }
+    }
+
+    @Test
+    public void testPipelinedMessages() throws Exception {
+        var request = new Request(server.url()).engine(engine).body("first");
+        for (int i = 0; i < 1000; i++) {
+            request.message("message-" + i);
+            if (i % 100 == 99) {
+                request.flush();
+            }
+        }
+        request.message(new byte[]{1, 2, 3});
+        var count = new AtomicInteger();
+        var response = request.completeWhen(payload -> count.incrementAndGet() == 1002).executeAsync().get(10, TimeUnit.SECONDS);
+
+        var messages = response.messages();
+        Assert.assertEquals(messages.size(), 1002);
+        Assert.assertEquals(messages.get(0).text(), "first");
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(messages.get(i + 1).text(), "message-" + i);
+        }
+        Assert.assertEquals(messages.get(1001).bytes(), new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testConcurrentBatchesLeaveBatchModeUntouched() throws Exception {
+        var socket = new ServiceSocket(null, null, null);
+        var received = new CountDownLatch(4 * 101);
+        socket.listen(message -> received.countDown());
+        engine.connect(socket, URI.create(server.url()), new ClientUpgradeRequest());
+        Assert.assertTrue(socket.awaitOpen(10, TimeUnit.SECONDS));
+        try {
+            var mode = socket.getSession().getRemote().getBatchMode();
+            var sends = new ArrayList<CompletableFuture<?>>();
+            for (int i = 0; i < 4; i++) {
+                var batch = new ArrayList<Message>();
+                for (int j = 0; j < 100; j++) {
+                    batch.add(Message.text("batch-" + i + "-" + j));
+                }
+                var sender = i;
+                sends.add(CompletableFuture.runAsync(() -> sends(socket, batch, "single-" + sender)));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+            Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(socket.getSession().getRemote().getBatchMode(), mode);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static void sends(ServiceSocket socket, List<Message> batch, String single) {
+        CompletableFuture.allOf(socket.sendBatch(batch), socket.sendMessageAsync(single)).join();
+    }
+
+    @Test
+    public void testTimingPhases() throws Exception {
+        var timing = new Request(server.url()).engine(engine).body("hello").execute().timing();
+
+        Assert.assertTrue(timing.start() > 0);
+        Assert.assertTrue(timing.connected() >= timing.start());
+        Assert.assertTrue(timing.upgraded() >= timing.connected());
+        Assert.assertTrue(timing.opened() >= timing.upgraded());
+        Assert.assertTrue(timing.sent() >= timing.opened());
+        Assert.assertTrue(timing.lastFrame() >= timing.firstFrame());
+        Assert.assertTrue(timing.firstFrame() >= timing.opened());
+        Assert.assertTrue(timing.connect() >= 0);
+        Assert.assertTrue(timing.handshake() >= 0);
+        Assert.assertTrue(timing.total() > 0);
+    }
+
+    @Test
+    public void testTimingClosedByServer() throws Exception {
+        var response = new Request(server.url()).engine(engine).query(query -> query.put("close", true)).body("bye")
+                .execute(message -> false);
+
+        Assert.assertTrue(response.timing().closed() >= response.timing().lastFrame());
+        Assert.assertTrue(response.timing().lastFrame() > 0);
+    }
+
+    @Test
+    public void testTimingPooledSkipsHandshake() throws Exception {
+        try (var pooled = new WebSocketEngine().start()) {
+            new Request(server.url()).engine(pooled).keepAlive(true).body("warm").execute();
+            var timing = new Request(server.url()).engine(pooled).keepAlive(true).body("again").execute().timing();
+
+            Assert.assertEquals(timing.connected(), 0);
+            Assert.assertEquals(timing.connect(), -1);
+            Assert.assertTrue(timing.sent() > 0);
+            Assert.assertTrue(timing.firstFrame() > 0);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class RequestStreamTest extends EchoServerSupport {
+
+    @Override
+    protected WebSocketEngine newEngine() {
+        return new WebSocketEngine().threads(8, 16);
+    }
+
+    @Test
+    public void testStreamUntilServerCloses() throws Exception {
+        var subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        new Request(server.url()).engine(engine).query(query -> {
+            query.put("repeat", 20);
+            query.put("close", true);
+        }).body("tick").stream().subscribe(subscriber);
+
+        subscriber.done.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(subscriber.messages.size(), 20);
+        Assert.assertTrue(subscriber.messages.stream().allMatch(message -> message.text().equals("tick")));
+    }
+
+    @Test
+    public void testStreamHonoursDemand() throws Exception {
+        var subscriber = new RecordingSubscriber(2);
+        new Request(server.url()).engine(engine).query(query -> query.put("repeat", 200)).body("tick").stream().subscribe(subscriber);
+
+        // 需求耗尽后不再推送，读取被挂起
+        Thread.sleep(500);
+        Assert.assertEquals(subscriber.messages.size(), 2);
+
+        subscriber.subscription.request(198);
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (subscriber.messages.size() < 200 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(subscriber.messages.size(), 200);
+        subscriber.subscription.cancel();
+        Assert.assertFalse(subscriber.done.isDone());
+    }
+
+    @Test
+    public void testStreamCancel() throws Exception {
+        var subscriber = new RecordingSubscriber(1) {
+            @Override
+            public void onNext(Message item) {
+                super.onNext(item);
+                subscription.cancel();
+            }
+        };
+        new Request(server.url()).engine(engine).query(query -> query.put("repeat", 5)).body("tick").stream().subscribe(subscriber);
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (subscriber.messages.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        Assert.assertEquals(subscriber.messages.size(), 1);
+        Assert.assertFalse(subscriber.done.isDone());
+    }
+
+    @Test
+    public void testStreamConnectFailure() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var subscriber = new RecordingSubscriber(1);
+        new Request("ws://localhost:" + port + "/echo").engine(engine).stream().subscribe(subscriber);
+
+        var failure = subscriber.done.handle((v, e) -> e).get(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(failure);
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Message> {
+
+        final List<Message> messages = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final long initial;
+        Flow.Subscription subscription;
+
+        RecordingSubscriber(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(Message item) {
+            messages.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestTemplateTest extends EchoServerSupport {
+
+    @Test
+    public void testQueryIsEncoded() throws Exception {
+        var query = new LinkedHashMap<String, Object>();
+        query.put("q", "a b&c=d");
+        query.put("名", "值");
+        var request = new Request("ws://localhost:8080/test").query(query);
+
+        var expected = "ws://localhost:8080/test?q=a+b%26c%3Dd&%E5%90%8D=%E5%80%BC";
+        Assert.assertEquals(request.uri().toString(), expected);
+        Assert.assertEquals(request.freeze().uri().toString(), expected);
+    }
+
+    @Test
+    public void testFrozenTemplateIsImmutable() throws Exception {
+        var headers = new LinkedHashMap<String, String>();
+        headers.put("Authorization", "Bearer token");
+        var request = new Request("ws://localhost:8080/test").headers(headers).query(Map.of("id", 1)).message("hello");
+        var template = request.freeze();
+
+        Assert.assertTrue(template.frozen());
+        Assert.assertFalse(request.frozen());
+        Assert.assertSame(template.freeze(), template);
+        Assert.assertSame(template.uri(), template.uri());
+        Assert.assertThrows(IllegalStateException.class, () -> template.body("other"));
+        Assert.assertThrows(IllegalStateException.class, () -> template.message("other"));
+        Assert.assertThrows(IllegalStateException.class, () -> template.timeout(5));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> template.headers().put("X-Other", "1"));
+
+        // 冻结后修改原请求与原映射不影响模板
+        headers.put("X-Other", "1");
+        request.query(Map.of("id", 2)).timeout(5);
+        Assert.assertEquals(template.headers(), Map.of("Authorization", "Bearer token"));
+        Assert.assertEquals(template.uri().toString(), "ws://localhost:8080/test?id=1");
+        Assert.assertEquals(template.timeout(), 60);
+    }
+
+    @Test
+    public void testFrozenTemplateExecutesConcurrently() throws Exception {
+        var template = new Request(server.url()).engine(engine).query(Map.of("note", "a b")).body("hello").timeout(10).freeze();
+        var executor = Executors.newFixedThreadPool(8);
+        var succeeded = new AtomicInteger();
+        try {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int j = 0; j < 25; j++) {
+                        try {
+                            var response = template.execute(x -> true);
+                            if (response.status() == 1000 && "hello".equals(response.text())) {
+                                succeeded.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(succeeded.get(), 200);
+    }
+
+    @Test
+    public void testFrozenBufferBodyIsNotCorruptedByConcurrentExecutions() throws Exception {
+        var payload = new byte[64 * 1024];
+        new Random(7).nextBytes(payload);
+        var buffer = ByteBuffer.allocateDirect(payload.length).put(payload).flip();
+        var template = new Request(server.url()).engine(engine).body(buffer).timeout(10).freeze();
+        Assert.assertTrue(template.buffer().isReadOnly());
+
+        var futures = new ArrayList<CompletableFuture<Response>>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(template.executeAsync(x -> true));
+        }
+        for (var future : futures) {
+            Assert.assertTrue(Arrays.equals(future.get(30, TimeUnit.SECONDS).bytes(), payload));
+        }
+        var content = new byte[payload.length];
+        buffer.duplicate().get(content);
+        Assert.assertEquals(content, payload);
+    }
+}
@@ -34,13 +34,15 @@ import org.testng.annotations.Test;
 
 import java.util.HashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class RequestTest {
 
     @BeforeClass
-    public void beforeClass() {
+    public void beforeClass() throws Exception {
         Executors.newSingleThreadExecutor().submit(WebSocketServerTest::test);
+        WebSocketServerTest.started.await(10, TimeUnit.SECONDS);
     }
 
     @Test
@@ -35,6 +35,8 @@ import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ResponseTest {
 
@@ -114,4 +116,84 @@ public class ResponseTest {
 
         Assert.assertEquals(response.status(), status);
     }
+
+    @Test
+    public void testResponseMessages() {
+        Response response = new Response(System.currentTimeMillis());
+        response.add(new Message(Message.Type.TEXT, "a".getBytes(StandardCharsets.UTF_8), 1));
+        response.add(new Message(Message.Type.BINARY, new byte[]{1, 2}, 2));
+
+        Assert.assertEquals(response.messages().size(), 2);
+        Assert.assertEquals(response.messages().get(0).text(), "a");
+        Assert.assertEquals(response.messages().get(1).type(), Message.Type.BINARY);
+        Assert.assertEquals(response.stream().mapToLong(Message::receivedAt).sum(), 3);
+        Assert.assertEquals(response.bytes(), new byte[]{1, 2});
+        Assert.assertSame(response.last(), response.messages().get(1));
+        Assert.assertNotNull(response.endTime());
+    }
+
+    @Test
+    public void testResponseRetainRingBuffer() {
+        Response response = new Response(System.currentTimeMillis(), 3);
+        for (int i = 0; i < 40; i++) {
+            response.add(new Message(Message.Type.TEXT, String.valueOf(i).getBytes(StandardCharsets.UTF_8), i));
+        }
+
+        Assert.assertEquals(response.received(), 40);
+        var texts = new ArrayList<String>();
+        for (Message message : response) {
+            texts.add(message.text());
+        }
+        Assert.assertEquals(texts, List.of("37", "38", "39"));
+        Assert.assertEquals(response.text(), "39");
+    }
+
+    @Test
+    public void testResponseTextDecodedOnce() {
+        Response response = new Response(System.currentTimeMillis());
+        response.add(new Message(Message.Type.TEXT, "你好".getBytes(StandardCharsets.UTF_8), 1));
+
+        Assert.assertEquals(response.text(), "你好");
+        Assert.assertSame(response.text(), response.text());
+        Assert.assertSame(response.last().text(), response.text());
+    }
+
+    @Test
+    public void testResponseTextCharset() {
+        Response response = new Response(System.currentTimeMillis());
+        response.charset(StandardCharsets.ISO_8859_1);
+        response.add(new Message(Message.Type.BINARY, new byte[]{(byte) 0xe9, 'a'}, 1));
+
+        Assert.assertEquals(response.text(), "\u00e9a");
+        Assert.assertEquals(response.chars().toString(), "\u00e9a");
+        Assert.assertSame(response.text(StandardCharsets.ISO_8859_1), response.text());
+        Assert.assertEquals(response.text(StandardCharsets.UTF_8), "\ufffda");
+    }
+
+    @Test
+    public void testResponseAsciiChars() {
+        Response response = new Response(System.currentTimeMillis());
+        response.add(new Message(Message.Type.BINARY, "{\"code\":0}".getBytes(StandardCharsets.US_ASCII), 1));
+
+        CharSequence chars = response.chars();
+        Assert.assertFalse(chars instanceof String);
+        Assert.assertEquals(chars.length(), 10);
+        Assert.assertEquals(chars.charAt(1), '"');
+        Assert.assertEquals(chars.subSequence(2, 6).toString(), "code");
+        Assert.assertEquals(chars.toString(), "{\"code\":0}");
+    }
+
+    @Test
+    public void testReceivedTextIsEncodedLazily() {
+        var text = "a\u00e9\u4f60\ud83d\ude00\ud800z";
+        var message = new Message(text, 1);
+        Response response = new Response(System.currentTimeMillis());
+        response.add(message);
+
+        Assert.assertSame(response.text(), text);
+        Assert.assertEquals(message.length(), text.getBytes(StandardCharsets.UTF_8).length);
+        Assert.assertEquals(response.bytes(), text.getBytes(StandardCharsets.UTF_8));
+        Assert.assertSame(response.bytes(), message.bytes());
+        Assert.assertEquals(message.length(), message.bytes().length);
+    }
 }
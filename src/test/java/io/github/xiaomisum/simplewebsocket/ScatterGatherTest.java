@@ -0,0 +1,111 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class ScatterGatherTest extends EchoServerSupport {
+
+    @Test
+    public void testAllEndpointsWithConcurrencyCap() throws Exception {
+        var urls = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            urls.add(server.url() + "?node=" + i);
+        }
+        var result = new ScatterGather(new Request("unused").engine(engine).body("probe")).endpoints(urls).concurrency(4).run();
+
+        Assert.assertEquals(result.exchanges().size(), 20);
+        Assert.assertEquals(result.succeeded(), 20);
+        Assert.assertEquals(result.responses().size(), 20);
+        Assert.assertTrue(result.responses().values().stream().allMatch(response -> "probe".equals(response.text())));
+        Assert.assertTrue(result.cancelled().isEmpty());
+        Assert.assertFalse(result.quorumReached());
+        Assert.assertTrue(result.fastest().latencyNanos() <= result.slowest().latencyNanos());
+        Assert.assertEquals(result.latency().count(), 20);
+    }
+
+    @Test
+    public void testFailuresAndCloseStatuses() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var refused = "ws://localhost:" + port + "/";
+        var normal = server.url() + "?close=true";
+        var policy = server.url() + "?closeCode=1008";
+        // 等待服务端关闭连接，以便记录关闭状态码
+        var template = new Request("unused").engine(engine).body("probe").timeout(5).completeWhen(payload -> false);
+        var result = new ScatterGather(template).endpoints(List.of(refused, normal, policy)).run();
+
+        Assert.assertEquals(result.succeeded(), 1);
+        Assert.assertEquals(result.fastest().url(), normal);
+        Assert.assertEquals(result.failures().keySet(), Set.of(refused));
+        Assert.assertEquals(result.closeStatuses(), Map.of(1008, List.of(policy)));
+        Assert.assertTrue(result.toString().contains("succeeded   1"), result.toString());
+    }
+
+    @Test
+    public void testQuorumCancelsStragglers() throws Exception {
+        var silent = silent().url();
+        var urls = List.of(silent, server.url(), silent + "?n=2", server.url() + "?n=2", silent + "?n=3");
+        var startedAt = System.nanoTime();
+        var result = new ScatterGather(new Request("unused").engine(engine).body("probe").timeout(30))
+                .endpoints(urls).quorum(2).run();
+
+        Assert.assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(10));
+        Assert.assertTrue(result.quorumReached());
+        Assert.assertEquals(result.succeeded(), 2);
+        Assert.assertEquals(result.cancelled().size(), 3);
+        Assert.assertTrue(result.cancelled().stream().allMatch(url -> url.startsWith(silent)));
+    }
+
+    @Test
+    public void testTimedOutEndpointsDoNotCountTowardsQuorum() throws Exception {
+        // 回显后不关闭的端点在超时前已收到消息，但完成条件永远不满足
+        var stalled = List.of(server.url() + "?node=1", server.url() + "?node=2");
+        var normal = server.url() + "?close=true";
+        var template = new Request("unused").engine(engine).body("probe").timeout(1).completeWhen(payload -> false);
+        var result = new ScatterGather(template).endpoints(List.of(stalled.get(0), stalled.get(1), normal)).quorum(2).run();
+
+        Assert.assertFalse(result.quorumReached());
+        Assert.assertEquals(result.succeeded(), 1);
+        Assert.assertEquals(result.timedOut(), stalled);
+        Assert.assertEquals(result.fastest().url(), normal);
+        Assert.assertEquals(result.slowest().url(), normal);
+        Assert.assertTrue(result.closeStatuses().isEmpty());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class SendQueueTest extends EchoServerSupport {
+
+    private static final int LARGE = 1024 * 1024;
+
+    private ServiceSocket open(String url, int maxMessages, OverflowPolicy overflow) throws Exception {
+        var socket = new ServiceSocket(null, null, null);
+        socket.sendQueue(maxMessages, 64L * LARGE, overflow);
+        engine.connect(socket, new URI(url), new ClientUpgradeRequest());
+        Assert.assertTrue(socket.awaitOpen(5, TimeUnit.SECONDS));
+        return socket;
+    }
+
+    /**
+     * 向不读取数据的对端持续发送大消息，直到TCP缓冲区写满、队列达到上限
+     */
+    private static ArrayList<CompletableFuture<Void>> fill(ServiceSocket socket, int count) {
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < count; i++) {
+            futures.add(socket.enqueue(new byte[LARGE]));
+        }
+        return futures;
+    }
+
+    @Test
+    public void testMessagesDrainWithinLimits() throws Exception {
+        var socket = open(server.url(), 8, OverflowPolicy.FAIL);
+        try {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(socket.enqueue("message " + i));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            var queue = socket.sendQueue();
+            Assert.assertEquals(queue.depth(), 0);
+            Assert.assertEquals(queue.bytes(), 0);
+            Assert.assertTrue(queue.peakDepth() >= 1 && queue.peakDepth() <= 8);
+            Assert.assertEquals(queue.rejected(), 0);
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testFailFastWhenPeerIsSlow() throws Exception {
+        var socket = open(silent().url(), 4, OverflowPolicy.FAIL);
+        try {
+            var futures = fill(socket, 64);
+            var queue = socket.sendQueue();
+            Assert.assertTrue(queue.rejected() > 0, "rejected " + queue.rejected());
+            Assert.assertTrue(queue.depth() <= 4);
+            var failure = Assert.expectThrows(CompletionException.class, () -> futures.get(futures.size() - 1).join());
+            Assert.assertTrue(failure.getCause() instanceof RejectedExecutionException);
+        } finally {
+            socket.abort(new IOException("test finished"));
+        }
+    }
+
+    @Test
+    public void testDropOldestKeepsNewestMessages() throws Exception {
+        var socket = open(silent().url(), 4, OverflowPolicy.DROP_OLDEST);
+        ArrayList<CompletableFuture<Void>> futures;
+        try {
+            futures = fill(socket, 64);
+            var queue = socket.sendQueue();
+            Assert.assertTrue(queue.dropped() > 0, "dropped " + queue.dropped());
+            Assert.assertTrue(queue.depth() <= 4);
+            Assert.assertFalse(futures.get(futures.size() - 1).isDone());
+            Assert.assertTrue(futures.stream().anyMatch(future -> future.isCompletedExceptionally()
+                    && future.handle((v, e) -> e instanceof CancellationException).join()));
+        } finally {
+            socket.abort(new IOException("test finished"));
+        }
+        Assert.assertTrue(socket.awaitCompletion(5, TimeUnit.SECONDS));
+        // 断开后排队中与正在写出的消息都以失败结束
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((v, e) -> null).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(socket.sendQueue().depth(), 0);
+    }
+
+    @Test
+    public void testBlockedProducerIsReleasedOnClose() throws Exception {
+        var socket = open(silent().url(), 2, OverflowPolicy.BLOCK);
+        var producer = new CompletableFuture<Void>();
+        var thread = new Thread(() -> {
+            try {
+                fill(socket, 64);
+                producer.complete(null);
+            } catch (Throwable e) {
+                producer.completeExceptionally(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(thread.getState(), Thread.State.WAITING);
+        Assert.assertTrue(socket.sendQueue().depth() <= 2);
+
+        socket.abort(new IOException("test finished"));
+        producer.get(5, TimeUnit.SECONDS);
+        var failed = Assert.expectThrows(ExecutionException.class, () -> socket.enqueue("late").get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(failed.getCause() instanceof IOException);
+    }
+}
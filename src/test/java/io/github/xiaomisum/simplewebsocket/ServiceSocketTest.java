@@ -0,0 +1,247 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.eclipse.jetty.websocket.api.MessageTooLargeException;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
+import org.eclipse.jetty.websocket.common.frames.ContinuationFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServiceSocketTest extends EchoServerSupport {
+
+    @Test
+    public void testAggregateSliceOfPooledBuffer() {
+        // 帧负载只是一个更大缓冲区中的一段
+        var pooled = ByteBuffer.allocate(64);
+        pooled.put("xxxxxhello".getBytes(StandardCharsets.UTF_8)).flip().position(5);
+        var aggregator = new MessageAggregator();
+
+        Assert.assertTrue(aggregator.append(new BinaryFrame().setPayload(pooled), -1));
+        var message = aggregator.take();
+        Assert.assertEquals(message.length, 5);
+        Assert.assertEquals(new String(message, StandardCharsets.UTF_8), "hello");
+        Assert.assertEquals(pooled.position(), 5);
+    }
+
+    @Test
+    public void testAggregateContinuationFrames() {
+        var aggregator = new MessageAggregator();
+        Assert.assertFalse(aggregator.append(new TextFrame().setPayload("hel").setFin(false), -1));
+        Assert.assertFalse(aggregator.append(new ContinuationFrame().setPayload("lo ").setFin(false), -1));
+        Assert.assertTrue(aggregator.append(new ContinuationFrame().setPayload("world").setFin(true), -1));
+        Assert.assertEquals(aggregator.type(), org.eclipse.jetty.websocket.api.extensions.Frame.Type.TEXT);
+        Assert.assertEquals(new String(aggregator.take(), StandardCharsets.UTF_8), "hello world");
+    }
+
+    @Test
+    public void testFragmentedTextMessage() throws Exception {
+        var body = "fragment-".repeat(1000);
+        var response = new Request(server.url()).query(query -> query.put("fragments", 3)).body(body).execute();
+        Assert.assertEquals(response.text(), body);
+    }
+
+    @Test
+    public void testFragmentedBinaryMessage() throws Exception {
+        var data = new byte[1024 * 1024];
+        new Random(7).nextBytes(data);
+        try (var engine = new WebSocketEngine().maxMessageSize(2 * 1024 * 1024).start()) {
+            var response = new Request(server.url()).engine(engine).query(query -> query.put("fragments", 4)).bytes(data).execute();
+            Assert.assertEquals(response.bytes(), data);
+
+            var buffer = response.buffer();
+            Assert.assertTrue(buffer.isReadOnly());
+            Assert.assertEquals(buffer.remaining(), data.length);
+        }
+    }
+
+    @Test
+    public void testDirectBufferBodyIsRestoredAfterSend() throws Exception {
+        var data = new byte[4099];
+        new Random(11).nextBytes(data);
+        var buffer = ByteBuffer.allocateDirect(data.length + 8);
+        buffer.position(3);
+        buffer.put(data).flip().position(3);
+        var request = new Request(server.url()).body(buffer);
+
+        // 同一个请求执行两次，第二次发送的仍是原始内容
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(request.execute().bytes(), data);
+            Assert.assertEquals(buffer.position(), 3);
+            Assert.assertEquals(buffer.limit(), data.length + 3);
+            var content = new byte[data.length];
+            buffer.duplicate().get(content);
+            Assert.assertEquals(content, data);
+        }
+    }
+
+    @Test
+    public void testReadOnlyBufferBody() throws Exception {
+        var buffer = ByteBuffer.wrap("read-only".getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        var response = new Request(server.url()).body(buffer).execute();
+        Assert.assertEquals(new String(response.bytes(), StandardCharsets.UTF_8), "read-only");
+        Assert.assertEquals(buffer.remaining(), 9);
+    }
+
+    @Test
+    public void testSendPartial() throws Exception {
+        var response = new Response(System.currentTimeMillis());
+        var socket = new ServiceSocket(response, null, null);
+        WebSocketEngine.defaultEngine().connect(socket, URI.create(server.url()), new ClientUpgradeRequest());
+        try {
+            socket.opened().get(5, TimeUnit.SECONDS);
+            var first = ByteBuffer.allocateDirect(3).put(new byte[]{1, 2, 3}).flip();
+            var second = ByteBuffer.wrap(new byte[]{4, 5});
+            var third = ByteBuffer.wrap(new byte[]{6}).asReadOnlyBuffer();
+            // 不等待前一个分片写出即提交下一个
+            var head = CompletableFuture.allOf(socket.sendPartial(first, false), socket.sendPartial(second, false));
+            // 分片消息结束前不能插入新的数据消息
+            Assert.assertTrue(socket.sendMessageAsync("other").isCompletedExceptionally());
+            Assert.assertTrue(socket.sendMessageAsync(new byte[]{7}).isCompletedExceptionally());
+            Assert.assertTrue(socket.sendBatch(List.of(Message.text("other"))).isCompletedExceptionally());
+            Assert.assertThrows(IllegalStateException.class, () -> socket.sendMessage("other"));
+            var sent = CompletableFuture.allOf(head, socket.sendPartial(third, true));
+            sent.get(5, TimeUnit.SECONDS);
+            socket.completion().get(5, TimeUnit.SECONDS);
+
+            Assert.assertEquals(response.bytes(), new byte[]{1, 2, 3, 4, 5, 6});
+            Assert.assertEquals(first.get(0), 1);
+            Assert.assertEquals(second.array(), new byte[]{4, 5});
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testMultipleMessages() throws Exception {
+        var count = new AtomicInteger();
+        var response = new Request(server.url()).query(query -> query.put("repeat", 5)).body("tick")
+                .execute(message -> count.incrementAndGet() == 5);
+
+        var messages = response.messages();
+        Assert.assertEquals(messages.size(), 5);
+        Assert.assertTrue(messages.stream().allMatch(message -> message.isText() && message.text().equals("tick")));
+        for (int i = 1; i < messages.size(); i++) {
+            Assert.assertTrue(messages.get(i).receivedAt() >= messages.get(i - 1).receivedAt());
+        }
+    }
+
+    @Test
+    public void testRetainLatestMessages() throws Exception {
+        var count = new AtomicInteger();
+        var response = new Request(server.url()).query(query -> query.put("repeat", 50)).retain(4).bytes(new byte[]{9})
+                .execute(message -> count.incrementAndGet() == 50);
+
+        Assert.assertEquals(response.received(), 50);
+        Assert.assertEquals(response.messages().size(), 4);
+        Assert.assertEquals(response.last().type(), Message.Type.BINARY);
+    }
+
+    @Test
+    public void testCompleteWhenSkipsConversion() {
+        var socket = new ServiceSocket(new Response(System.currentTimeMillis()), message -> false, bytes -> {
+            throw new AssertionError("converter must not be called");
+        }).completeWhen(payload -> payload.isReadOnly() && payload.remaining() == 2 && payload.get(payload.position()) == 1);
+
+        socket.onMessage(new byte[]{0, 1, 2}, 1, 2);
+        Assert.assertTrue(socket.completion().isDone());
+    }
+
+    @Test
+    public void testConverterReceivesMessageRange() {
+        var socket = new ServiceSocket(new Response(System.currentTimeMillis()), "bc"::equals, String::new);
+
+        socket.onMessage("abcd".getBytes(StandardCharsets.UTF_8), 1, 2);
+        Assert.assertTrue(socket.completion().isDone());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedLatchesFollowFutures() {
+        var socket = new ServiceSocket(new Response(System.currentTimeMillis()), null, null);
+        Assert.assertEquals(socket.openLatch.getCount(), 1);
+        Assert.assertEquals(socket.closeLatch.getCount(), 1);
+
+        socket.opened().completeExceptionally(new IllegalStateException("refused"));
+        socket.onMessage("done");
+        Assert.assertEquals(socket.openLatch.getCount(), 0);
+        Assert.assertEquals(socket.closeLatch.getCount(), 0);
+    }
+
+    @Test
+    public void testOnMessageRecordsIntoResponse() {
+        var response = new Response(System.currentTimeMillis());
+        var socket = new ServiceSocket(response, "hello"::equals, null);
+
+        socket.onMessage("hello");
+        Assert.assertTrue(socket.completion().isDone());
+        Assert.assertEquals(response.received(), 1);
+        Assert.assertEquals(response.bytes(), "hello".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(response.text(), "hello");
+    }
+
+    @Test
+    public void testCompleteWhenBinaryMessages() throws Exception {
+        var count = new AtomicInteger();
+        var response = new Request(server.url()).query(query -> query.put("repeat", 3)).bytes(new byte[]{7, 7})
+                .completeWhen(payload -> payload.get(0) == 7 && count.incrementAndGet() == 3)
+                .execute();
+
+        Assert.assertEquals(response.messages().size(), 3);
+    }
+
+    @Test
+    public void testMessageTooLarge() throws Exception {
+        try (var engine = new WebSocketEngine().maxMessageSize(1024).start()) {
+            var response = new Request(server.url()).engine(engine).query(query -> query.put("fragments", 4)).bytes(new byte[4096]).execute();
+            Assert.assertEquals(response.status(), 1009);
+            Assert.assertNull(response.bytes());
+        }
+    }
+
+    @Test
+    public void testAggregateLimit() {
+        var aggregator = new MessageAggregator();
+        aggregator.append(new BinaryFrame().setPayload(new byte[600]).setFin(false), 1000);
+        Assert.assertThrows(MessageTooLargeException.class,
+                () -> aggregator.append(new ContinuationFrame().setPayload(new byte[600]).setFin(true), 1000));
+    }
+}
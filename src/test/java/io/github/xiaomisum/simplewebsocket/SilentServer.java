@@ -0,0 +1,73 @@
+package io.github.xiaomisum.simplewebsocket;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 完成握手后不再读写的服务端，模拟已失效但TCP连接仍在、或读取极慢的对端
+ */
+public class SilentServer implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+
+    private SilentServer(ServerSocket server) {
+        this.server = server;
+    }
+
+    public static SilentServer start() throws Exception {
+        var silent = new SilentServer(new ServerSocket(0));
+        var acceptor = new Thread(silent::accept, "silent-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return silent;
+    }
+
+    public String url() {
+        return "ws://localhost:" + server.getLocalPort() + "/";
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                var socket = server.accept();
+                accepted.add(socket);
+                handshake(socket);
+            } catch (Exception ignored) {
+
+            }
+        }
+    }
+
+    private static void handshake(Socket socket) throws Exception {
+        var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+        String key = null;
+        for (String line; (line = reader.readLine()) != null && !line.isEmpty(); ) {
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                key = line.substring(line.indexOf(':') + 1).trim();
+            }
+        }
+        var digest = MessageDigest.getInstance("SHA-1")
+                .digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.ISO_8859_1));
+        var response = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(digest) + "\r\n\r\n";
+        socket.getOutputStream().write(response.getBytes(StandardCharsets.ISO_8859_1));
+        socket.getOutputStream().flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (var socket : accepted) {
+            socket.close();
+        }
+    }
+}
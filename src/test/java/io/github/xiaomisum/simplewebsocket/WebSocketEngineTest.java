@@ -0,0 +1,119 @@
+/*
+ *
+ *  * The MIT License (MIT)
+ *  *
+ *  * Copyright (c) 2025.  Lorem XiaoMiSum (mi_xiao@qq.com)
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining
+ *  * a copy of this software and associated documentation files (the
+ *  * 'Software'), to deal in the Software without restriction, including
+ *  * without limitation the rights to use, copy, modify, merge, publish,
+ *  * distribute, sublicense, and/or sell copies of the Software, and to
+ *  * permit persons to whom the Software is furnished to do so, subject to
+ *  * the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be
+ *  * included in all copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED 'AS IS', WITHOUT WARRANTY OF ANY KIND,
+ *  * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ *  * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ *  * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ *  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *
+ */
+
+
+package io.github.xiaomisum.simplewebsocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WebSocketEngineTest extends EchoServerSupport {
+
+    @Test
+    public void testLifecycle() {
+        var engine = new WebSocketEngine();
+        Assert.assertFalse(engine.isRunning());
+        engine.start();
+        Assert.assertTrue(engine.isRunning());
+        // 重复启动无副作用
+        engine.start();
+        engine.close();
+        Assert.assertFalse(engine.isRunning());
+        Assert.assertThrows(IllegalStateException.class, engine::start);
+    }
+
+    @Test
+    public void testConfigureAfterStart() {
+        try (var engine = new WebSocketEngine().start()) {
+            Assert.assertThrows(IllegalStateException.class, () -> engine.threads(1, 2));
+        }
+    }
+
+    @Test
+    public void testDefaultEngine() {
+        var request = new Request(server.url());
+        Assert.assertSame(request.engine(), WebSocketEngine.defaultEngine());
+        Assert.assertTrue(request.engine().isRunning());
+    }
+
+    @Test
+    public void testExecuteSequential() throws Exception {
+        try (var engine = new WebSocketEngine().start()) {
+            for (int i = 0; i < 20; i++) {
+                var response = new Request(server.url()).engine(engine).body("hello").execute();
+                Assert.assertNotNull(response.endTime());
+                Assert.assertEquals(response.status(), 1000);
+            }
+            Assert.assertTrue(engine.isRunning());
+        }
+    }
+
+    @Test
+    public void testExecuteConcurrent() throws Exception {
+        var pool = Executors.newFixedThreadPool(8);
+        try (var engine = new WebSocketEngine().start()) {
+            var tasks = new ArrayList<Callable<Response>>();
+            for (int i = 0; i < 64; i++) {
+                tasks.add(() -> new Request(server.url()).engine(engine).bytes("hello".getBytes()).execute());
+            }
+            for (var future : pool.invokeAll(tasks)) {
+                Assert.assertNotNull(future.get().endTime());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        var callers = Executors.newVirtualThreadPerTaskExecutor();
+        try (var engine = new WebSocketEngine().virtualThreads(true).start()) {
+            var onVirtualThread = new AtomicBoolean(true);
+            var tasks = new ArrayList<Callable<Response>>();
+            for (int i = 0; i < 200; i++) {
+                tasks.add(() -> new Request(server.url()).engine(engine).body("hello").execute(message -> {
+                    // 消息回调运行在引擎的虚拟线程上
+                    onVirtualThread.compareAndSet(true, Thread.currentThread().isVirtual());
+                    return true;
+                }));
+            }
+            for (var future : callers.invokeAll(tasks)) {
+                Assert.assertEquals(future.get().text(), "hello");
+            }
+            Assert.assertTrue(engine.virtualThreads());
+            Assert.assertTrue(onVirtualThread.get());
+        } finally {
+            callers.shutdown();
+        }
+    }
+}
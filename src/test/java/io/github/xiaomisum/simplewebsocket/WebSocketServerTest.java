@@ -5,7 +5,12 @@ import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.websocket.server.WebSocketHandler;
 import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
 
+import java.util.concurrent.CountDownLatch;
+
 public class WebSocketServerTest {
+    //服务启动完成后计数
+    public static final CountDownLatch started = new CountDownLatch(1);
+
     public static void main(String[] args) {
         test();
     }
@@ -26,6 +31,7 @@ public class WebSocketServerTest {
         server.setHandler(wsHandler);
         try {
             server.start();
+            started.countDown();
             System.out.println("Server started at: " + server.getURI());
             server.join();
 
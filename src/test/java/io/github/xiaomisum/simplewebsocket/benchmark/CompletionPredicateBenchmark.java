@@ -0,0 +1,63 @@
+package io.github.xiaomisum.simplewebsocket.benchmark;
+
+import io.github.xiaomisum.simplewebsocket.Response;
+import io.github.xiaomisum.simplewebsocket.ServiceSocket;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比二进制消息经文本转换后判断完成条件与直接以 ByteBuffer 视图判断的耗时与每条消息的分配量，
+ * 分配量见 -prof gc 输出的 gc.alloc.rate.norm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompletionPredicateBenchmark {
+
+    @Param({"64", "4096"})
+    public int size;
+
+    private byte[] payload;
+    private ServiceSocket textHandler;
+    private ServiceSocket bufferPredicate;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompletionPredicateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        payload = new byte[size];
+        Arrays.fill(payload, (byte) 'a');
+        // 条件永不满足，每次调用都完整地走一遍判断
+        textHandler = new ServiceSocket(new Response(System.currentTimeMillis()), message -> message.startsWith("z"), String::new);
+        bufferPredicate = new ServiceSocket(new Response(System.currentTimeMillis()), null, null)
+                .completeWhen(buffer -> buffer.get(buffer.position()) == 'z');
+    }
+
+    /**
+     * 关闭连接处理函数：每条消息先转换为 String
+     */
+    @Benchmark
+    public void textHandler() {
+        textHandler.onMessage(payload, 0, payload.length);
+    }
+
+    /**
+     * 基于负载的完成条件：只读视图，不做转换
+     */
+    @Benchmark
+    public void bufferPredicate() {
+        bufferPredicate.onMessage(payload, 0, payload.length);
+    }
+}
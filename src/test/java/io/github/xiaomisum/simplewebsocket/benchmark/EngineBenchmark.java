@@ -0,0 +1,70 @@
+package io.github.xiaomisum.simplewebsocket.benchmark;
+
+import io.github.xiaomisum.simplewebsocket.EchoServer;
+import io.github.xiaomisum.simplewebsocket.Request;
+import io.github.xiaomisum.simplewebsocket.Response;
+import io.github.xiaomisum.simplewebsocket.WebSocketEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比每次请求新建客户端（改造前的行为）、共享引擎与复用长连接的每秒请求数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class EngineBenchmark {
+
+    private EchoServer server;
+    private WebSocketEngine engine;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EngineBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        server = EchoServer.start();
+        engine = new WebSocketEngine().start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        engine.close();
+        server.close();
+    }
+
+    /**
+     * 每次请求启动并停止一个独立的客户端
+     */
+    @Benchmark
+    public Response perRequestClient() throws Exception {
+        try (var engine = new WebSocketEngine().start()) {
+            return new Request(server.url()).engine(engine).body("hello").execute();
+        }
+    }
+
+    /**
+     * 所有请求共享一个已启动的引擎
+     */
+    @Benchmark
+    public Response sharedEngine() throws Exception {
+        return new Request(server.url()).engine(engine).body("hello").execute();
+    }
+
+    /**
+     * 从共享引擎的连接池租用已打开的连接，跳过握手
+     */
+    @Benchmark
+    public Response keepAlive() throws Exception {
+        return new Request(server.url()).engine(engine).keepAlive(true).body("hello").execute();
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.xiaomisum.simplewebsocket.benchmark;
+
+import io.github.xiaomisum.simplewebsocket.EchoServer;
+import io.github.xiaomisum.simplewebsocket.Message;
+import io.github.xiaomisum.simplewebsocket.ServiceSocket;
+import io.github.xiaomisum.simplewebsocket.WebSocketEngine;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比逐条阻塞发送与流水线批量发送一批小消息的耗时，消息均写出到连接后计为完成
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"100", "1000"})
+    public int messages;
+
+    private EchoServer server;
+    private WebSocketEngine engine;
+    private ServiceSocket socket;
+    private List<Message> batch;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PipelineBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        server = EchoServer.start();
+        engine = new WebSocketEngine().start();
+        socket = new ServiceSocket(null, null, null);
+        engine.connect(socket, URI.create(server.url()), new ClientUpgradeRequest());
+        socket.awaitOpen(10, TimeUnit.SECONDS);
+        batch = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            batch.add(Message.text("replay-" + i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        socket.close();
+        engine.close();
+        server.close();
+    }
+
+    /**
+     * 每条消息阻塞发送，写出后再发送下一条
+     */
+    @Benchmark
+    public void blocking() throws Exception {
+        for (var message : batch) {
+            socket.sendMessage(message.text());
+        }
+    }
+
+    /**
+     * 整批消息以批量模式流水线提交，最后一条刷新
+     */
+    @Benchmark
+    public void pipelined() throws Exception {
+        socket.sendBatch(batch).get();
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.xiaomisum.simplewebsocket.benchmark;
+
+import io.github.xiaomisum.simplewebsocket.Correlator;
+import io.github.xiaomisum.simplewebsocket.EchoServer;
+import io.github.xiaomisum.simplewebsocket.Message;
+import io.github.xiaomisum.simplewebsocket.MultiplexedSession;
+import io.github.xiaomisum.simplewebsocket.Request;
+import io.github.xiaomisum.simplewebsocket.Response;
+import io.github.xiaomisum.simplewebsocket.WebSocketEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同消息大小下一次往返的延迟与吞吐量：
+ * 新建连接（握手+往返）、连接池租用的连接、已打开连接上的往返，以及已打开连接上的流水线吞吐量
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    private static final int PIPELINE_DEPTH = 100;
+
+    /**
+     * 二进制消息使用默认的关联ID头部，文本消息以 "id|" 前缀写在开头，回显服务原样返回
+     */
+    private static final Correlator HEADER = new Correlator() {
+        @Override
+        public String inject(String id, String message) {
+            return id + "|" + message;
+        }
+
+        @Override
+        public String extract(Message message) {
+            if (!message.isText()) {
+                return Correlator.headerId(message.buffer());
+            }
+            var text = message.text();
+            var index = text.indexOf('|');
+            return index < 0 ? null : text.substring(0, index);
+        }
+    };
+
+    @Param({"64", "65536"})
+    public int size;
+
+    private EchoServer server;
+    private WebSocketEngine engine;
+    private MultiplexedSession session;
+    private byte[] payload;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RoundTripBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        server = EchoServer.start();
+        engine = new WebSocketEngine().maxMessageSize(1024 * 1024).start();
+        session = new Request(server.url()).engine(engine).multiplex(HEADER);
+        payload = new byte[size];
+        new Random(7).nextBytes(payload);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        session.close();
+        engine.close();
+        server.close();
+    }
+
+    /**
+     * 每次建立新连接：握手、一次往返、关闭
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Response coldConnect() throws Exception {
+        return new Request(server.url()).engine(engine).bytes(payload).execute();
+    }
+
+    /**
+     * 从连接池租用已打开的连接完成一次往返
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Response pooledRoundTrip() throws Exception {
+        return new Request(server.url()).engine(engine).keepAlive(true).bytes(payload).execute();
+    }
+
+    /**
+     * 在已打开的连接上完成一次往返
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Message warmRoundTrip() throws Exception {
+        return session.call(payload).get();
+    }
+
+    /**
+     * 在已打开的连接上同时发出多条消息并等待全部应答，按消息计数
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public void throughput() {
+        var calls = new CompletableFuture<?>[PIPELINE_DEPTH];
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            calls[i] = session.call(payload);
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.xiaomisum.simplewebsocket.benchmark;
+
+import io.github.xiaomisum.simplewebsocket.EchoServer;
+import io.github.xiaomisum.simplewebsocket.Request;
+import io.github.xiaomisum.simplewebsocket.Response;
+import io.github.xiaomisum.simplewebsocket.WebSocketEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载测试：以阻塞API同时发起 concurrency 个交互，对比平台线程与虚拟线程两种模式下完成一批交互的耗时
+ * <p>
+ * 平台线程模式下引擎使用线程池，每个调用方占用一个平台线程；虚拟线程模式下引擎与调用方都使用虚拟线程
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss256k")
+public class VirtualThreadBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private String mode;
+
+    @Param({"200", "1000"})
+    private int concurrency;
+
+    private EchoServer server;
+    private WebSocketEngine engine;
+    private ExecutorService callers;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VirtualThreadBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        server = EchoServer.start();
+        var virtual = "VIRTUAL".equals(mode);
+        engine = new WebSocketEngine().virtualThreads(virtual).start();
+        callers = virtual ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        engine.close();
+        server.close();
+    }
+
+    /**
+     * 同时发起一批阻塞交互并等待全部完成
+     */
+    @Benchmark
+    public int concurrentBlockingExchanges() throws Exception {
+        var tasks = new ArrayList<Callable<Response>>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            tasks.add(() -> new Request(server.url()).engine(engine).body("hello").execute());
+        }
+        var completed = 0;
+        for (var future : callers.invokeAll(tasks)) {
+            if (future.get().status() == 1000) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+}